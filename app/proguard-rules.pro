@@ -12,10 +12,11 @@
 #   public *;
 #}
 
-# Uncomment this to preserve the line number information for
-# debugging stack traces.
-#-keepattributes SourceFile,LineNumberTable
+# Preserve the line number information for debugging stack traces of the shrunk release build.
+-keepattributes SourceFile,LineNumberTable
 
-# If you keep the line number information, uncomment this to
-# hide the original source file name.
-#-renamesourcefileattribute SourceFile
+# Hide the original source file name, since the line number information is kept.
+-renamesourcefileattribute SourceFile
+
+# Nothing else needs keeping: the service and the complication helper activity are kept through the merged manifest,
+# and nothing is looked up by reflection.
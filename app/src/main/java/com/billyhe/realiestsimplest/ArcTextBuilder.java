@@ -0,0 +1,131 @@
+package com.billyhe.realiestsimplest;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+
+import com.billyhe.realiestsimplest.core.ArcTextLayout;
+
+import java.util.Objects;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Android side of rim text: measures glyphs with the paint, lays them out with an ArcTextLayout and draws them.
+public class ArcTextBuilder {
+    @Setter private float centerX = 0;
+    @Setter private float centerY = 0;
+    @Setter private float radius = 0;
+    // Angle (in degrees, clockwise from 3 o'clock) the text is anchored at, according to the paint's text alignment.
+    @Setter private float anchorAngle = 0;
+    @Setter private Paint paint;
+    @Setter private String text;
+
+    @Getter private int glyphCount = 0;
+    private float[] glyphWidths = new float[0];
+    private final ArcTextLayout layout = new ArcTextLayout();
+    private float baselineOffset = 0;
+
+    private final Paint glyphPaint = new Paint();
+    private final Rect textBounds = new Rect();
+
+    // Parameters of the last computed layout, used to skip re-layout when nothing has changed.
+    private String layoutText;
+    private float layoutCenterX;
+    private float layoutCenterY;
+    private float layoutRadius;
+    private float layoutAnchorAngle;
+    private float layoutTextSize;
+    private Typeface layoutTypeface;
+    private Paint.Align layoutTextAlign;
+
+    // Returns true if the glyph layout had to be recomputed.
+    public boolean rebuild() {
+        if (this.paint == null || this.text == null || this.text.isEmpty() || this.radius <= 0) {
+            this.glyphCount = 0;
+            this.layoutText = null;
+            return true;
+        }
+
+        if (this.isLayoutCurrent()) {
+            return false;
+        }
+
+        final int length = this.text.length();
+        if (this.glyphWidths.length < length) {
+            this.glyphWidths = new float[length];
+        }
+        this.paint.getTextWidths(this.text, this.glyphWidths);
+
+        this.layout.setCenterX(this.centerX);
+        this.layout.setCenterY(this.centerY);
+        this.layout.setRadius(this.radius);
+        this.layout.setAnchorAngle(this.anchorAngle);
+        this.layout.setAlign(ArcTextBuilder.toLayoutAlign(this.paint.getTextAlign()));
+        this.layout.layout(this.glyphWidths, length);
+        this.glyphCount = length;
+
+        // Vertically center the text on the circle, based on the height of its first glyph.
+        this.paint.getTextBounds(this.text, 0, 1, this.textBounds);
+        this.baselineOffset = this.textBounds.height() / 2f;
+
+        this.layoutText = this.text;
+        this.layoutCenterX = this.centerX;
+        this.layoutCenterY = this.centerY;
+        this.layoutRadius = this.radius;
+        this.layoutAnchorAngle = this.anchorAngle;
+        this.layoutTextSize = this.paint.getTextSize();
+        this.layoutTypeface = this.paint.getTypeface();
+        this.layoutTextAlign = this.paint.getTextAlign();
+
+        return true;
+    }
+
+    public void draw(Canvas canvas) {
+        if (this.glyphCount == 0) {
+            return;
+        }
+
+        this.glyphPaint.set(this.paint);
+        this.glyphPaint.setTextAlign(Paint.Align.CENTER);
+
+        final float[] glyphX = this.layout.getGlyphX();
+        final float[] glyphY = this.layout.getGlyphY();
+        final float[] glyphRotations = this.layout.getGlyphRotations();
+        for (int i = 0; i < this.glyphCount; i++) {
+            // Zero-width entries are trailing halves of surrogate pairs, already drawn with their leading half.
+            if (this.glyphWidths[i] <= 0) {
+                continue;
+            }
+
+            final int end = Character.isHighSurrogate(this.layoutText.charAt(i)) && i + 1 < this.glyphCount ? i + 2 : i + 1;
+
+            canvas.save();
+            canvas.rotate(glyphRotations[i], glyphX[i], glyphY[i]);
+            canvas.drawText(this.layoutText, i, end, glyphX[i], glyphY[i] + this.baselineOffset, this.glyphPaint);
+            canvas.restore();
+        }
+    }
+
+    private static ArcTextLayout.Align toLayoutAlign(Paint.Align align) {
+        if (align == Paint.Align.CENTER) {
+            return ArcTextLayout.Align.CENTER;
+        } else if (align == Paint.Align.RIGHT) {
+            return ArcTextLayout.Align.RIGHT;
+        }
+        return ArcTextLayout.Align.LEFT;
+    }
+
+    private boolean isLayoutCurrent() {
+        return this.layoutText != null
+                && this.layoutText.equals(this.text)
+                && this.layoutCenterX == this.centerX
+                && this.layoutCenterY == this.centerY
+                && this.layoutRadius == this.radius
+                && this.layoutAnchorAngle == this.anchorAngle
+                && this.layoutTextSize == this.paint.getTextSize()
+                && Objects.equals(this.layoutTypeface, this.paint.getTypeface())
+                && this.layoutTextAlign == this.paint.getTextAlign();
+    }
+}
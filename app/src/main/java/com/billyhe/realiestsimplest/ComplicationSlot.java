@@ -0,0 +1,351 @@
+package com.billyhe.realiestsimplest;
+
+import android.app.PendingIntent;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.Icon;
+import android.support.wearable.complications.ComplicationData;
+import android.support.wearable.complications.ComplicationText;
+import android.support.wearable.complications.rendering.ComplicationDrawable;
+
+import lombok.Getter;
+
+// A complication rendered into cached bitmaps (one for interactive and one for ambient mode), which are only
+// re-rendered when what the complication would show actually changes.
+public class ComplicationSlot {
+    @Getter private final int id;
+    @Getter private final Rect bounds = new Rect();
+
+    private final Context context;
+    private final Runnable invalidationCallback;
+    // Created on the first render, so that slots that never show anything (and engine startup) don't pay for it.
+    private ComplicationDrawable drawable;
+    private boolean lowBitAmbient = false;
+    private boolean burnInProtection = false;
+
+    @Getter private ComplicationData data;
+    private ComplicationData pendingData;
+    private boolean hasPendingData = false;
+
+    // What the cached bitmaps show; null forces them to be re-rendered.
+    private String contentKey;
+    private boolean needsRender = false;
+    private long contentTimeMs = 0;
+    private final StringBuilder contentKeyBuilder = new StringBuilder();
+    // When the content key was computed, whether the data was active then, and the texts it read. The key holds until
+    // new data arrives, the data turns active or inactive, or one of those texts reads differently, which can only
+    // happen from keyValidUntilMs on.
+    private long keyTimeMs = 0;
+    private boolean keyActive = false;
+    private final ComplicationText[] keyTexts = new ComplicationText[2];
+    private int keyTextCount = 0;
+    private long keyValidFromMs = 0;
+    private long keyValidUntilMs = 0;
+
+    private Bitmap interactiveBitmap;
+    private Bitmap ambientBitmap;
+    private final Canvas canvas = new Canvas();
+
+    // Data last handed to the drawable; handing it over again would make it reload the data's icons.
+    private ComplicationData drawableData;
+    // The drawable invalidates itself while being set up for rendering, which must not trigger yet another render.
+    private boolean isRendering = false;
+
+    @Getter private long updateCount = 0;
+    @Getter private long renderCount = 0;
+
+    // The callback runs when the drawable invalidates itself (e.g. once an icon has loaded), after which the next
+    // update() re-renders the cached bitmaps.
+    public ComplicationSlot(Context context, int id, Runnable invalidationCallback) {
+        this.context = context;
+        this.id = id;
+        this.invalidationCallback = invalidationCallback;
+    }
+
+    // Stored until the next update(), so that bursts of data only cause a single re-render.
+    public void setPendingData(ComplicationData data) {
+        this.pendingData = data;
+        this.hasPendingData = true;
+    }
+
+    public void setAmbientProperties(boolean lowBitAmbient, boolean burnInProtection) {
+        this.lowBitAmbient = lowBitAmbient;
+        this.burnInProtection = burnInProtection;
+        if (this.drawable != null) {
+            this.drawable.setLowBitAmbient(lowBitAmbient);
+            this.drawable.setBurnInProtection(burnInProtection);
+        }
+        this.contentKey = null;
+    }
+
+    public void setBounds(int left, int top, int right, int bottom) {
+        if (this.bounds.left == left && this.bounds.top == top && this.bounds.right == right && this.bounds.bottom == bottom) {
+            return;
+        }
+
+        this.bounds.set(left, top, right, bottom);
+        this.contentKey = null;
+    }
+
+    // Applies pending data, and returns true if what the complication shows at the given time has changed since it
+    // was last rendered. This doesn't touch the cached bitmaps, which render() then brings up to date.
+    public boolean updateContent(long timeMs) {
+        boolean isNewData = false;
+        if (this.hasPendingData) {
+            this.data = this.pendingData;
+            this.pendingData = null;
+            this.hasPendingData = false;
+            this.updateCount++;
+            isNewData = true;
+        }
+
+        // This is checked on every ambient frame, so the key (which reads texts and describes icons, allocating) is
+        // only recomputed when it may have changed.
+        if (!isNewData && this.contentKey != null && this.isKeyCurrent(timeMs)) {
+            return false;
+        }
+
+        // Compared before turning it into a string, since providers tend to resend unchanged data.
+        final StringBuilder contentKey = this.computeContentKey(timeMs);
+        if (this.contentKey != null && this.contentKey.contentEquals(contentKey)) {
+            return false;
+        }
+
+        this.contentKey = contentKey.toString();
+        this.contentTimeMs = timeMs;
+        this.needsRender = true;
+        return true;
+    }
+
+    // Re-renders the cached bitmaps if the content changed in the last updateContent().
+    public void render() {
+        if (!this.needsRender) {
+            return;
+        }
+        this.needsRender = false;
+
+        this.renderBitmaps(this.contentTimeMs);
+    }
+
+    public void draw(Canvas canvas, boolean ambient) {
+        final Bitmap bitmap = ambient ? this.ambientBitmap : this.interactiveBitmap;
+        if (bitmap != null) {
+            canvas.drawBitmap(bitmap, this.bounds.left, this.bounds.top, null);
+        }
+    }
+
+    // Returns whether the given point is on the complication, and it has something to show.
+    public boolean contains(int x, int y) {
+        return this.data != null && this.bounds.contains(x, y) && this.isShown();
+    }
+
+    // Fires the complication's tap action; returns false if it has none (or it could not be sent).
+    public boolean sendTapAction() {
+        if (this.data == null || !this.isShown() || this.data.getType() == ComplicationData.TYPE_NO_PERMISSION) {
+            return false;
+        }
+
+        final PendingIntent tapAction = this.data.getTapAction();
+        if (tapAction == null) {
+            return false;
+        }
+
+        try {
+            tapAction.send();
+            return true;
+        } catch (PendingIntent.CanceledException e) {
+            return false;
+        }
+    }
+
+    public void recycle() {
+        this.releaseBitmaps();
+        this.contentKey = null;
+    }
+
+    private void releaseBitmaps() {
+        this.canvas.setBitmap(null);
+        if (this.interactiveBitmap != null) {
+            this.interactiveBitmap.recycle();
+            this.interactiveBitmap = null;
+        }
+        if (this.ambientBitmap != null) {
+            this.ambientBitmap.recycle();
+            this.ambientBitmap = null;
+        }
+    }
+
+    private boolean isShown() {
+        final int type = this.data.getType();
+        return type != ComplicationData.TYPE_EMPTY && type != ComplicationData.TYPE_NOT_CONFIGURED && type != ComplicationData.TYPE_NO_DATA;
+    }
+
+    private void renderBitmaps(long timeMs) {
+        final int width = this.bounds.width();
+        final int height = this.bounds.height();
+        if (width <= 0 || height <= 0 || this.data == null || !this.data.isActive(timeMs) || !this.isShown()) {
+            this.releaseBitmaps();
+            return;
+        }
+
+        if (this.interactiveBitmap == null || this.interactiveBitmap.getWidth() != width || this.interactiveBitmap.getHeight() != height) {
+            this.releaseBitmaps();
+            this.interactiveBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            this.ambientBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        }
+
+        if (this.drawable == null) {
+            this.drawable = this.createDrawable();
+        }
+
+        this.isRendering = true;
+        if (this.drawableData != this.data) {
+            this.drawableData = this.data;
+            this.drawable.setComplicationData(this.data);
+        }
+        this.drawable.setBounds(0, 0, width, height);
+        this.drawable.setCurrentTimeMillis(timeMs);
+
+        this.renderInto(this.interactiveBitmap, false);
+        this.renderInto(this.ambientBitmap, true);
+        this.canvas.setBitmap(null);
+        this.isRendering = false;
+        this.renderCount++;
+    }
+
+    private ComplicationDrawable createDrawable() {
+        final ComplicationDrawable drawable = new ComplicationDrawable(this.context);
+        drawable.setLowBitAmbient(this.lowBitAmbient);
+        drawable.setBurnInProtection(this.burnInProtection);
+        drawable.setCallback(new Drawable.Callback() {
+            @Override
+            public void invalidateDrawable(Drawable who) {
+                if (isRendering) {
+                    return;
+                }
+                contentKey = null;
+                invalidationCallback.run();
+            }
+
+            @Override
+            public void scheduleDrawable(Drawable who, Runnable what, long when) {
+                // The cached bitmaps are only re-rendered on invalidation, so there's nothing to animate.
+            }
+
+            @Override
+            public void unscheduleDrawable(Drawable who, Runnable what) {
+            }
+        });
+        return drawable;
+    }
+
+    private void renderInto(Bitmap bitmap, boolean ambient) {
+        bitmap.eraseColor(0);
+        this.canvas.setBitmap(bitmap);
+        this.drawable.setInAmbientMode(ambient);
+        this.drawable.draw(this.canvas);
+    }
+
+    // Returns whether the content key computed last would still come out the same at the given time, without
+    // allocating: the data is as active as it was, and its texts read the same as they did.
+    private boolean isKeyCurrent(long timeMs) {
+        if (this.data == null) {
+            return true;
+        }
+        if (this.data.isActive(timeMs) != this.keyActive) {
+            return false;
+        }
+        if (timeMs >= this.keyValidFromMs && timeMs < this.keyValidUntilMs) {
+            return true;
+        }
+
+        for (int i = 0; i < this.keyTextCount; i++) {
+            if (!this.keyTexts[i].returnsSameText(this.keyTimeMs, timeMs)) {
+                return false;
+            }
+        }
+        this.updateKeyValidity(timeMs);
+        return true;
+    }
+
+    // Until the first of the key's texts may change after the given time, there's no need to read them again.
+    private void updateKeyValidity(long timeMs) {
+        this.keyValidFromMs = timeMs;
+        this.keyValidUntilMs = Long.MAX_VALUE;
+        for (int i = 0; i < this.keyTextCount; i++) {
+            this.keyValidUntilMs = Math.min(this.keyValidUntilMs, this.keyTexts[i].getNextChangeTime(timeMs));
+        }
+    }
+
+    // Describes everything about the data that shows up on screen, with its texts as they'd read at the given time.
+    // Only the fields valid for the data's type are read. Icons are described by Icon.toString(), which identifies
+    // resource and URI icons but only the size of bitmap icons. Also records what isKeyCurrent() checks the key by.
+    private StringBuilder computeContentKey(long timeMs) {
+        final StringBuilder key = this.contentKeyBuilder;
+        key.setLength(0);
+        this.keyTimeMs = timeMs;
+        for (int i = 0; i < this.keyTextCount; i++) {
+            this.keyTexts[i] = null;
+        }
+        this.keyTextCount = 0;
+
+        if (this.data == null) {
+            return key;
+        }
+
+        final int type = this.data.getType();
+        this.keyActive = this.data.isActive(timeMs);
+        key.append(type).append('|').append(this.keyActive);
+
+        switch (type) {
+            case ComplicationData.TYPE_RANGED_VALUE:
+                key.append('|').append(this.data.getValue()).append('|').append(this.data.getMinValue()).append('|').append(this.data.getMaxValue());
+                // Fall through, ranged values have the same texts and icons as short texts.
+            case ComplicationData.TYPE_SHORT_TEXT:
+                this.appendText(key, this.data.getShortText(), timeMs);
+                this.appendText(key, this.data.getShortTitle(), timeMs);
+                this.appendIcon(key, this.data.getIcon());
+                this.appendIcon(key, this.data.getBurnInProtectionIcon());
+                break;
+            case ComplicationData.TYPE_LONG_TEXT:
+                this.appendText(key, this.data.getLongText(), timeMs);
+                this.appendText(key, this.data.getLongTitle(), timeMs);
+                this.appendIcon(key, this.data.getIcon());
+                this.appendIcon(key, this.data.getBurnInProtectionIcon());
+                this.appendIcon(key, this.data.getSmallImage());
+                break;
+            case ComplicationData.TYPE_ICON:
+                this.appendIcon(key, this.data.getIcon());
+                this.appendIcon(key, this.data.getBurnInProtectionIcon());
+                break;
+            case ComplicationData.TYPE_SMALL_IMAGE:
+                this.appendIcon(key, this.data.getSmallImage());
+                key.append('|').append(this.data.getImageStyle());
+                break;
+            case ComplicationData.TYPE_LARGE_IMAGE:
+                this.appendIcon(key, this.data.getLargeImage());
+                break;
+        }
+
+        this.updateKeyValidity(timeMs);
+        return key;
+    }
+
+    private void appendText(StringBuilder key, ComplicationText text, long timeMs) {
+        key.append('|');
+        if (text != null) {
+            key.append(text.getText(this.context, timeMs));
+            this.keyTexts[this.keyTextCount++] = text;
+        }
+    }
+
+    private void appendIcon(StringBuilder key, Icon icon) {
+        key.append('|');
+        if (icon != null) {
+            key.append(icon);
+        }
+    }
+}
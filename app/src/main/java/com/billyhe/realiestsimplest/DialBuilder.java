@@ -0,0 +1,78 @@
+package com.billyhe.realiestsimplest;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import lombok.Getter;
+import lombok.Setter;
+
+public class DialBuilder {
+    // Anything else baked into the dial, drawn on top of the markers and texts.
+    public interface Decoration {
+        void draw(Canvas canvas);
+    }
+
+    @Setter private int width = 0;
+    @Setter private int height = 0;
+    @Setter private float centerX = 0;
+    @Setter private float centerY = 0;
+    @Setter private float rimRadius = 0;
+    @Setter private float markerRadius = 0;
+    @Setter private int markerCount = 12;
+    @Setter private Paint backgroundPaint;
+    @Setter private Paint markerPaint;
+    @Setter private ArcTextBuilder[] textBuilders;
+    @Setter private Decoration decoration;
+
+    @Getter private Bitmap bitmap;
+
+    private final Canvas canvas = new Canvas();
+
+    public void rebuild() {
+        if (this.width <= 0 || this.height <= 0) {
+            this.recycle();
+            return;
+        }
+
+        // Only re-allocate the bitmap when the surface size has actually changed.
+        if (this.bitmap == null || this.bitmap.getWidth() != this.width || this.bitmap.getHeight() != this.height) {
+            this.recycle();
+            this.bitmap = Bitmap.createBitmap(this.width, this.height, Bitmap.Config.ARGB_8888);
+            this.canvas.setBitmap(this.bitmap);
+        }
+
+        if (this.backgroundPaint != null) {
+            this.canvas.drawRect(0, 0, this.width, this.height, this.backgroundPaint);
+        } else {
+            this.bitmap.eraseColor(0);
+        }
+
+        if (this.markerPaint != null && this.markerRadius > 0 && this.markerCount > 0) {
+            this.canvas.save();
+            for (int i = 0; i < this.markerCount; i++) {
+                this.canvas.rotate(360f / this.markerCount, this.centerX, this.centerY);
+                this.canvas.drawCircle(this.centerX, this.centerY - this.rimRadius, this.markerRadius, this.markerPaint);
+            }
+            this.canvas.restore();
+        }
+
+        if (this.textBuilders != null) {
+            for (ArcTextBuilder textBuilder : this.textBuilders) {
+                textBuilder.draw(this.canvas);
+            }
+        }
+
+        if (this.decoration != null) {
+            this.decoration.draw(this.canvas);
+        }
+    }
+
+    public void recycle() {
+        if (this.bitmap != null) {
+            this.canvas.setBitmap(null);
+            this.bitmap.recycle();
+            this.bitmap = null;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.billyhe.realiestsimplest;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Composites hand sprites over a static background onto a persistent back buffer, only repainting the regions
+// covered by the previous and current positions of hands that actually moved since the last frame. Their union is
+// split into disjoint rects, each repainted once under a plain rect clip: clipping to the union's path would be
+// anti-aliased, which blends a shade differently from a full redraw.
+public class FrameCompositor {
+    public interface Overlay {
+        void draw(Canvas canvas);
+    }
+
+    @Setter private Bitmap background;
+    @Setter private Overlay overlay;
+    @Setter private float pivotX = 0;
+    @Setter private float pivotY = 0;
+
+    private final HandBuilder[] hands;
+    private final float[] composedRotations;
+    private final RectF[] composedBounds;
+    private final RectF[] currentBounds;
+
+    private Bitmap backBuffer;
+    private final Canvas canvas = new Canvas();
+    private boolean isValid = false;
+
+    private final Matrix matrix = new Matrix();
+    private final Paint spritePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final RectF spriteRect = new RectF();
+    private final RectF handDamage = new RectF();
+
+    // Damaged rects of the current frame (at most one per hand), and their union as disjoint rects: the rects'
+    // edges cut it into horizontal bands, each covered by at most one span per damaged rect.
+    private final Rect[] damageRects;
+    private int damageRectCount = 0;
+    private final Rect[] unionRects;
+    private int unionRectCount = 0;
+    private final int[] bandEdges;
+    private final int[] spanLefts;
+    private final int[] spanRights;
+
+    @Getter private long frameCount = 0;
+    @Getter private long fullFrameCount = 0;
+    @Getter private long pixelsTouched = 0;
+    @Getter private long lastFramePixelsTouched = 0;
+
+    // Hands are drawn in the given order, i.e. the last one ends up on top.
+    public FrameCompositor(HandBuilder... hands) {
+        this.hands = hands;
+        this.composedRotations = new float[hands.length];
+        this.composedBounds = new RectF[hands.length];
+        this.currentBounds = new RectF[hands.length];
+        final int maxDamageRects = Math.max(1, hands.length);
+        this.damageRects = new Rect[maxDamageRects];
+        this.unionRects = new Rect[(2 * maxDamageRects - 1) * maxDamageRects];
+        this.bandEdges = new int[2 * maxDamageRects];
+        this.spanLefts = new int[maxDamageRects];
+        this.spanRights = new int[maxDamageRects];
+        for (int i = 0; i < hands.length; i++) {
+            this.composedBounds[i] = new RectF();
+            this.currentBounds[i] = new RectF();
+        }
+        for (int i = 0; i < this.damageRects.length; i++) {
+            this.damageRects[i] = new Rect();
+        }
+        for (int i = 0; i < this.unionRects.length; i++) {
+            this.unionRects[i] = new Rect();
+        }
+    }
+
+    public void resize(int width, int height) {
+        this.invalidate();
+
+        if (this.backBuffer != null && this.backBuffer.getWidth() == width && this.backBuffer.getHeight() == height) {
+            return;
+        }
+
+        this.recycle();
+        if (width > 0 && height > 0) {
+            this.backBuffer = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            this.canvas.setBitmap(this.backBuffer);
+        }
+    }
+
+    // Forces the next frame to be fully redrawn, e.g. after the background or the overlay has changed.
+    public void invalidate() {
+        this.isValid = false;
+    }
+
+    public void setFilterBitmap(boolean filterBitmap) {
+        this.spritePaint.setFilterBitmap(filterBitmap);
+        this.invalidate();
+    }
+
+    public void recycle() {
+        if (this.backBuffer != null) {
+            this.canvas.setBitmap(null);
+            this.backBuffer.recycle();
+            this.backBuffer = null;
+        }
+    }
+
+    // Brings the back buffer up to date with the given hand rotations (in the same order as the hands)
+    // and presents it onto the target canvas.
+    public void compose(float[] rotations, Canvas target) {
+        if (this.backBuffer == null) {
+            return;
+        }
+
+        for (int i = 0; i < this.hands.length; i++) {
+            this.computeBounds(i, rotations[i], this.currentBounds[i]);
+        }
+
+        this.damageRectCount = 0;
+        if (!this.isValid) {
+            this.damageRects[this.damageRectCount++].set(0, 0, this.backBuffer.getWidth(), this.backBuffer.getHeight());
+            this.fullFrameCount++;
+            this.isValid = true;
+        } else {
+            for (int i = 0; i < this.hands.length; i++) {
+                if (rotations[i] == this.composedRotations[i]) {
+                    continue;
+                }
+
+                // Repaint where the hand was as well as where it is now.
+                this.handDamage.set(this.composedBounds[i]);
+                this.handDamage.union(this.currentBounds[i]);
+                final Rect rect = this.damageRects[this.damageRectCount];
+                this.handDamage.roundOut(rect);
+                if (rect.intersect(0, 0, this.backBuffer.getWidth(), this.backBuffer.getHeight())) {
+                    this.damageRectCount++;
+                }
+            }
+        }
+
+        long pixels = 0;
+        if (this.damageRectCount > 0) {
+            this.computeDamageUnion();
+            for (int i = 0; i < this.unionRectCount; i++) {
+                final Rect rect = this.unionRects[i];
+                this.redraw(rotations, rect);
+                pixels += (long) rect.width() * rect.height();
+            }
+        }
+
+        for (int i = 0; i < this.hands.length; i++) {
+            this.composedRotations[i] = rotations[i];
+            this.composedBounds[i].set(this.currentBounds[i]);
+        }
+
+        this.frameCount++;
+        this.lastFramePixelsTouched = pixels;
+        this.pixelsTouched += pixels;
+
+        target.drawBitmap(this.backBuffer, 0, 0, null);
+    }
+
+    // Restores the damaged rect from the background and redraws everything that intersects it.
+    private void redraw(float[] rotations, Rect rect) {
+        this.canvas.save();
+        this.canvas.clipRect(rect);
+
+        if (this.background != null) {
+            this.canvas.drawBitmap(this.background, rect, rect, null);
+        } else {
+            this.canvas.drawColor(Color.BLACK);
+        }
+
+        for (int i = 0; i < this.hands.length; i++) {
+            if (this.currentBounds[i].intersects(rect.left, rect.top, rect.right, rect.bottom)) {
+                this.drawHand(i, rotations[i]);
+            }
+        }
+
+        if (this.overlay != null) {
+            this.overlay.draw(this.canvas);
+        }
+
+        this.canvas.restore();
+    }
+
+    // Splits the union of the damaged rects into disjoint rects, in bands from top to bottom. A band's spans extend
+    // the rects ending right above them where they line up, so that e.g. nested rects come out as a single rect.
+    private void computeDamageUnion() {
+        this.unionRectCount = 0;
+        if (this.damageRectCount == 1) {
+            this.unionRects[this.unionRectCount++].set(this.damageRects[0]);
+            return;
+        }
+
+        int edgeCount = 0;
+        for (int i = 0; i < this.damageRectCount; i++) {
+            edgeCount = FrameCompositor.insertEdge(this.bandEdges, edgeCount, this.damageRects[i].top);
+            edgeCount = FrameCompositor.insertEdge(this.bandEdges, edgeCount, this.damageRects[i].bottom);
+        }
+
+        for (int band = 0; band + 1 < edgeCount; band++) {
+            final int top = this.bandEdges[band];
+            final int bottom = this.bandEdges[band + 1];
+
+            // Spans of the rects covering the band, sorted by their left edge.
+            int spanCount = 0;
+            for (int i = 0; i < this.damageRectCount; i++) {
+                final Rect rect = this.damageRects[i];
+                if (rect.top > top || rect.bottom < bottom) {
+                    continue;
+                }
+                int j = spanCount++;
+                for (; j > 0 && this.spanLefts[j - 1] > rect.left; j--) {
+                    this.spanLefts[j] = this.spanLefts[j - 1];
+                    this.spanRights[j] = this.spanRights[j - 1];
+                }
+                this.spanLefts[j] = rect.left;
+                this.spanRights[j] = rect.right;
+            }
+
+            final int aboveCount = this.unionRectCount;
+            for (int i = 0; i < spanCount; i++) {
+                final int left = this.spanLefts[i];
+                int right = this.spanRights[i];
+                while (i + 1 < spanCount && this.spanLefts[i + 1] <= right) {
+                    right = Math.max(right, this.spanRights[++i]);
+                }
+
+                boolean merged = false;
+                for (int j = 0; j < aboveCount && !merged; j++) {
+                    final Rect above = this.unionRects[j];
+                    if (above.left == left && above.right == right && above.bottom == top) {
+                        above.bottom = bottom;
+                        merged = true;
+                    }
+                }
+                if (!merged) {
+                    this.unionRects[this.unionRectCount++].set(left, top, right, bottom);
+                }
+            }
+        }
+    }
+
+    // Inserts an edge into the sorted edges, unless it's already there; returns the new edge count.
+    private static int insertEdge(int[] edges, int count, int edge) {
+        int i = count;
+        for (; i > 0 && edges[i - 1] > edge; i--) {
+            edges[i] = edges[i - 1];
+        }
+        if (i > 0 && edges[i - 1] == edge) {
+            System.arraycopy(edges, i + 1, edges, i, count - i);
+            return count;
+        }
+        edges[i] = edge;
+        return count + 1;
+    }
+
+    private void drawHand(int index, float rotation) {
+        final HandBuilder hand = this.hands[index];
+        final Bitmap sprite = hand.getSprite();
+        if (sprite == null) {
+            return;
+        }
+
+        // Place the sprite where the un-rotated path would be, then rotate it around the pivot.
+        this.matrix.setTranslate(hand.getSpriteLeft(), hand.getSpriteTop());
+        this.matrix.postRotate(rotation, this.pivotX, this.pivotY);
+        this.canvas.drawBitmap(sprite, this.matrix, this.spritePaint);
+    }
+
+    private void computeBounds(int index, float rotation, RectF out) {
+        final HandBuilder hand = this.hands[index];
+        final Bitmap sprite = hand.getSprite();
+        if (sprite == null) {
+            out.setEmpty();
+            return;
+        }
+
+        this.spriteRect.set(hand.getSpriteLeft(), hand.getSpriteTop(), hand.getSpriteLeft() + sprite.getWidth(), hand.getSpriteTop() + sprite.getHeight());
+        this.matrix.setRotate(rotation, this.pivotX, this.pivotY);
+        this.matrix.mapRect(out, this.spriteRect);
+
+        // Bitmap filtering can bleed into the pixel just outside of the sprite's mapped bounds.
+        out.inset(-1, -1);
+    }
+}
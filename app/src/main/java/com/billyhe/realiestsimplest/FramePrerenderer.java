@@ -0,0 +1,183 @@
+package com.billyhe.realiestsimplest;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+
+import com.billyhe.realiestsimplest.core.Clock;
+
+import java.io.PrintWriter;
+
+// Renders frames for a known upcoming time on a background thread, so that drawing them later is a single blit.
+// The renderer is only ever called on the background thread, and never concurrently with cancel() returning.
+// The background thread is only started by the first prerender(), so that it doesn't add to the face's startup.
+public class FramePrerenderer {
+    public interface Renderer {
+        void render(Canvas canvas, long timeMs);
+    }
+
+    private final String name;
+    private final Renderer renderer;
+    // Tells whether renders finished late, on the same clock as the engine's.
+    private final Clock clock;
+    // Only used on the thread calling prerender(), cancel() and quit().
+    private HandlerThread thread;
+    private Handler handler;
+
+    // Guards the fields below; held by the main thread while blitting the ready frame.
+    private final Object lock = new Object();
+    // Held by the background thread for the whole duration of a render.
+    private final Object renderLock = new Object();
+
+    private int width = 0;
+    private int height = 0;
+    private int generation = 0;
+    private long pendingTimeMs = 0;
+    private int pendingGeneration = -1;
+
+    private Bitmap readyFrame;
+    private long readyTimeMs = Long.MIN_VALUE;
+    private Bitmap renderFrame;
+
+    // Frames drawn from a prerendered frame vs drawn by the caller instead, and renders that finished after
+    // (rather than before) the time they were rendered for.
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long renderCount = 0;
+    private long lateRenderCount = 0;
+
+    private final Canvas canvas = new Canvas();
+
+    private final Runnable renderTask = new Runnable() {
+        @Override
+        public void run() {
+            FramePrerenderer.this.render();
+        }
+    };
+
+    public FramePrerenderer(String name, Clock clock, Renderer renderer) {
+        this.name = name;
+        this.clock = clock;
+        this.renderer = renderer;
+    }
+
+    public void resize(int width, int height) {
+        this.cancel();
+
+        synchronized (this.lock) {
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    // Schedules rendering the frame for the given time, replacing any frame that has been scheduled but not started.
+    public void prerender(long timeMs, long delayMs) {
+        synchronized (this.lock) {
+            if (this.readyTimeMs == timeMs || (this.pendingTimeMs == timeMs && this.pendingGeneration == this.generation)) {
+                return;
+            }
+
+            this.pendingTimeMs = timeMs;
+            this.pendingGeneration = this.generation;
+        }
+
+        if (this.thread == null) {
+            this.thread = new HandlerThread(this.name, Process.THREAD_PRIORITY_DISPLAY);
+            this.thread.start();
+            this.handler = new Handler(this.thread.getLooper());
+        }
+
+        this.handler.removeCallbacks(this.renderTask);
+        this.handler.postDelayed(this.renderTask, delayMs);
+    }
+
+    // Draws the prerendered frame for the given time onto the canvas; returns false if there is no such frame.
+    public boolean draw(Canvas target, long timeMs) {
+        synchronized (this.lock) {
+            if (this.readyFrame == null || this.readyTimeMs != timeMs) {
+                this.missCount++;
+                return false;
+            }
+
+            target.drawBitmap(this.readyFrame, 0, 0, null);
+            this.hitCount++;
+            return true;
+        }
+    }
+
+    // Drops the ready frame and any scheduled or in-flight render, and waits for the latter to finish. Once this
+    // returns, whatever the renderer reads may be changed safely until the next call to prerender().
+    public void cancel() {
+        synchronized (this.lock) {
+            this.generation++;
+            this.readyTimeMs = Long.MIN_VALUE;
+        }
+
+        if (this.handler == null) {
+            return;
+        }
+        this.handler.removeCallbacks(this.renderTask);
+
+        synchronized (this.renderLock) {
+            // Nothing to do: acquiring the lock means no render is in progress.
+        }
+    }
+
+    public void dump(PrintWriter writer, String prefix) {
+        synchronized (this.lock) {
+            writer.printf("%sframes: %d prerendered, %d missed%n", prefix, this.hitCount, this.missCount);
+            writer.printf("%srenders: %d, finished late: %d%n", prefix, this.renderCount, this.lateRenderCount);
+        }
+    }
+
+    public void quit() {
+        this.cancel();
+        if (this.thread != null) {
+            this.thread.quitSafely();
+        }
+    }
+
+    private void render() {
+        synchronized (this.renderLock) {
+            final long timeMs;
+            final int generation;
+            final Bitmap frame;
+
+            synchronized (this.lock) {
+                if (this.pendingGeneration != this.generation || this.width <= 0 || this.height <= 0) {
+                    return;
+                }
+
+                timeMs = this.pendingTimeMs;
+                generation = this.pendingGeneration;
+
+                if (this.renderFrame == null || this.renderFrame.getWidth() != this.width || this.renderFrame.getHeight() != this.height) {
+                    this.renderFrame = Bitmap.createBitmap(this.width, this.height, Bitmap.Config.ARGB_8888);
+                }
+                frame = this.renderFrame;
+            }
+
+            this.canvas.setBitmap(frame);
+            this.renderer.render(this.canvas, timeMs);
+            this.canvas.setBitmap(null);
+
+            synchronized (this.lock) {
+                this.renderCount++;
+                if (this.clock.currentTimeMillis() > timeMs) {
+                    this.lateRenderCount++;
+                }
+
+                if (generation != this.generation) {
+                    return;
+                }
+
+                // Swap buffers; the previously ready frame gets rendered into next time.
+                this.renderFrame = this.readyFrame;
+                this.readyFrame = frame;
+                this.readyTimeMs = timeMs;
+            }
+        }
+    }
+}
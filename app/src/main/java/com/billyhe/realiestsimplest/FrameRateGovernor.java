@@ -0,0 +1,162 @@
+package com.billyhe.realiestsimplest;
+
+import android.os.SystemClock;
+
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Getter;
+
+public class FrameRateGovernor {
+    public enum Reason {
+        FRAMES_OVER_BUDGET,
+        FRAMES_UNDER_BUDGET,
+        BATTERY_LOW,
+        BATTERY_OKAY,
+    }
+
+    // Sweep rates are halved from the maximum down to this rate; below it we fall back to ticking once a second.
+    private static final int MIN_SWEEP_FRAME_RATE = 10;
+
+    // A frame is over budget when drawing it takes longer than this fraction of the frame interval.
+    private static final float FRAME_BUDGET_FRACTION = 0.5f;
+
+    // Consecutive frames needed over budget to step the rate down, or under the next rate's budget to step it up.
+    private static final int OVER_BUDGET_FRAMES_TO_STEP_DOWN = 3;
+    private static final int UNDER_BUDGET_FRAMES_TO_STEP_UP = 300;
+
+    private static final int RATE_CHANGE_HISTORY_SIZE = 16;
+
+    @Getter private final int maxFrameRate;
+
+    // Current sweep rate in frames per second, or 0 when ticking once a second.
+    @Getter private int frameRate;
+    @Getter private boolean batteryLow = false;
+
+    private int overBudgetStreak = 0;
+    private int underBudgetStreak = 0;
+
+    @Getter private long frameCount = 0;
+    @Getter private long overBudgetFrameCount = 0;
+    private final long[] rateChangeCounts = new long[Reason.values().length];
+
+    // Ring buffer of the most recent rate changes.
+    private final long[] rateChangeTimes = new long[FrameRateGovernor.RATE_CHANGE_HISTORY_SIZE];
+    private final int[] rateChangeFromRates = new int[FrameRateGovernor.RATE_CHANGE_HISTORY_SIZE];
+    private final int[] rateChangeToRates = new int[FrameRateGovernor.RATE_CHANGE_HISTORY_SIZE];
+    private final Reason[] rateChangeReasons = new Reason[FrameRateGovernor.RATE_CHANGE_HISTORY_SIZE];
+    private int rateChangeHistoryCount = 0;
+
+    public FrameRateGovernor(int maxFrameRate) {
+        this.maxFrameRate = maxFrameRate;
+        this.frameRate = maxFrameRate >= FrameRateGovernor.MIN_SWEEP_FRAME_RATE ? maxFrameRate : 0;
+    }
+
+    public boolean isSweeping() {
+        return this.frameRate > 0;
+    }
+
+    public long getFrameIntervalMs() {
+        return this.isSweeping() ? TimeUnit.SECONDS.toMillis(1) / this.frameRate : TimeUnit.SECONDS.toMillis(1);
+    }
+
+    // Records how long drawing a frame took. Returns true if that caused the frame rate to change.
+    public boolean recordFrame(long durationNanos) {
+        this.frameCount++;
+
+        if (durationNanos > FrameRateGovernor.getFrameBudgetNanos(this.frameRate)) {
+            this.overBudgetFrameCount++;
+            this.overBudgetStreak++;
+            this.underBudgetStreak = 0;
+        } else {
+            this.overBudgetStreak = 0;
+            if (durationNanos <= FrameRateGovernor.getFrameBudgetNanos(this.getHigherFrameRate())) {
+                this.underBudgetStreak++;
+            } else {
+                this.underBudgetStreak = 0;
+            }
+        }
+
+        if (this.overBudgetStreak >= FrameRateGovernor.OVER_BUDGET_FRAMES_TO_STEP_DOWN && this.isSweeping()) {
+            return this.changeFrameRate(this.getLowerFrameRate(), Reason.FRAMES_OVER_BUDGET);
+        }
+
+        if (this.underBudgetStreak >= FrameRateGovernor.UNDER_BUDGET_FRAMES_TO_STEP_UP && !this.batteryLow) {
+            return this.changeFrameRate(this.getHigherFrameRate(), Reason.FRAMES_UNDER_BUDGET);
+        }
+
+        return false;
+    }
+
+    // Returns true if that caused the frame rate to change.
+    public boolean setBatteryLow(boolean batteryLow) {
+        if (this.batteryLow == batteryLow) {
+            return false;
+        }
+        this.batteryLow = batteryLow;
+
+        if (batteryLow) {
+            return this.changeFrameRate(0, Reason.BATTERY_LOW);
+        }
+
+        // Start over from the lowest sweep rate and let the frame times step it back up from there.
+        return this.changeFrameRate(this.getHigherFrameRate(), Reason.BATTERY_OKAY);
+    }
+
+    public long getRateChangeCount(Reason reason) {
+        return this.rateChangeCounts[reason.ordinal()];
+    }
+
+    public void dump(PrintWriter writer, String prefix) {
+        writer.printf("%sframe rate: %d (max %d)%s%n", prefix, this.frameRate, this.maxFrameRate, this.batteryLow ? ", battery low" : "");
+        writer.printf("%sframes: %d, over budget: %d%n", prefix, this.frameCount, this.overBudgetFrameCount);
+        for (Reason reason : Reason.values()) {
+            writer.printf("%srate changes (%s): %d%n", prefix, reason, this.getRateChangeCount(reason));
+        }
+
+        final int historyCount = Math.min(this.rateChangeHistoryCount, FrameRateGovernor.RATE_CHANGE_HISTORY_SIZE);
+        for (int i = this.rateChangeHistoryCount - historyCount; i < this.rateChangeHistoryCount; i++) {
+            final int index = i % FrameRateGovernor.RATE_CHANGE_HISTORY_SIZE;
+            writer.printf("%s  @%dms: %d -> %d (%s)%n", prefix, this.rateChangeTimes[index], this.rateChangeFromRates[index], this.rateChangeToRates[index], this.rateChangeReasons[index]);
+        }
+    }
+
+    private boolean changeFrameRate(int frameRate, Reason reason) {
+        this.overBudgetStreak = 0;
+        this.underBudgetStreak = 0;
+
+        if (frameRate == this.frameRate) {
+            return false;
+        }
+
+        final int index = this.rateChangeHistoryCount % FrameRateGovernor.RATE_CHANGE_HISTORY_SIZE;
+        this.rateChangeTimes[index] = SystemClock.elapsedRealtime();
+        this.rateChangeFromRates[index] = this.frameRate;
+        this.rateChangeToRates[index] = frameRate;
+        this.rateChangeReasons[index] = reason;
+        this.rateChangeHistoryCount++;
+        this.rateChangeCounts[reason.ordinal()]++;
+
+        this.frameRate = frameRate;
+        return true;
+    }
+
+    private int getLowerFrameRate() {
+        final int lower = this.frameRate / 2;
+        return lower >= FrameRateGovernor.MIN_SWEEP_FRAME_RATE ? lower : 0;
+    }
+
+    private int getHigherFrameRate() {
+        // Next rate up the ladder of rates obtained by halving the maximum.
+        int rate = this.maxFrameRate;
+        while (rate / 2 > this.frameRate && rate / 2 >= FrameRateGovernor.MIN_SWEEP_FRAME_RATE) {
+            rate /= 2;
+        }
+        return rate >= FrameRateGovernor.MIN_SWEEP_FRAME_RATE ? rate : 0;
+    }
+
+    private static long getFrameBudgetNanos(int frameRate) {
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / (frameRate > 0 ? frameRate : 1);
+        return (long) (intervalNanos * FrameRateGovernor.FRAME_BUDGET_FRACTION);
+    }
+}
@@ -0,0 +1,76 @@
+package com.billyhe.realiestsimplest;
+
+import android.os.SystemClock;
+
+import java.io.PrintWriter;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Per-phase draw timings, kept separately for ambient and interactive frames.
+// When disabled, start() and record() reduce to a single branch each.
+public class FrameTimings {
+    public enum Phase {
+        FRAME,
+        BACKGROUND,
+        STATUS_TEXTS,
+        HANDS,
+        COMPOSITE,
+        NOTIFICATION_INDICATOR,
+    }
+
+    private static final double[] DUMP_PERCENTILES = { 50, 95, 99 };
+
+    @Getter @Setter private boolean enabled = false;
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[2 * Phase.values().length];
+
+    public FrameTimings() {
+        for (int i = 0; i < this.histograms.length; i++) {
+            this.histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    // Returns the start timestamp of a phase, to be passed to record() once the phase is done.
+    public long start() {
+        return this.enabled ? SystemClock.elapsedRealtimeNanos() : 0;
+    }
+
+    public void record(Phase phase, boolean ambient, long startNanos) {
+        if (!this.enabled || startNanos == 0) {
+            return;
+        }
+
+        this.getHistogram(phase, ambient).record(SystemClock.elapsedRealtimeNanos() - startNanos);
+    }
+
+    public LatencyHistogram getHistogram(Phase phase, boolean ambient) {
+        return this.histograms[(ambient ? Phase.values().length : 0) + phase.ordinal()];
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : this.histograms) {
+            histogram.reset();
+        }
+    }
+
+    public void dump(PrintWriter writer, String prefix) {
+        writer.printf("%stiming: %s%n", prefix, this.enabled ? "enabled" : "disabled");
+
+        for (int mode = 0; mode < 2; mode++) {
+            final boolean ambient = mode == 1;
+            for (Phase phase : Phase.values()) {
+                final LatencyHistogram histogram = this.getHistogram(phase, ambient);
+                if (histogram.getCount() == 0) {
+                    continue;
+                }
+
+                writer.printf("%s%s %s: n=%d", prefix, ambient ? "ambient" : "interactive", phase, histogram.getCount());
+                for (double percentile : FrameTimings.DUMP_PERCENTILES) {
+                    writer.printf(" p%.0f=%.3fms", percentile, histogram.getPercentileNanos(percentile) / 1e6);
+                }
+                writer.printf(" max=%.3fms mean=%.3fms%n", histogram.getMaxNanos() / 1e6, histogram.getMeanNanos() / 1e6);
+            }
+        }
+    }
+}
@@ -1,64 +1,78 @@
 package com.billyhe.realiestsimplest;
 
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
 import android.graphics.Path;
+import android.graphics.RectF;
+
+import com.billyhe.realiestsimplest.core.HandGeometry;
 
 import lombok.Getter;
-import lombok.Setter;
-
-public class HandBuilder {
-    @Setter private float originX = 0;
-    @Setter private float originY = 0;
-    @Setter private float handLength = 0;
-    @Setter private float tailLength = 0;
-    @Setter private float tipWidth = 0;
-    @Setter private float tipHeight = 0;
-    @Setter private float baseWidth = 0;
-    @Setter private float circleRadius = 0;
 
+// Android side of a hand: its geometry as a Path, and rasterized into a sprite.
+public class HandBuilder extends HandGeometry {
     @Getter private Path path;
 
+    @Getter private Bitmap sprite;
+    @Getter private float spriteLeft = 0;
+    @Getter private float spriteTop = 0;
+
+    private final RectF spriteBounds = new RectF();
+    private final Canvas spriteCanvas = new Canvas();
+
     public HandBuilder() {
         this.path = new Path();
     }
 
+    @Override
     public void rebuild() {
-        this.path.reset();
+        super.rebuild();
 
-        if (this.handLength <= 0) {
-            return;
-        }
-
-        this.path.moveTo(this.originX, this.originY - this.handLength);
-
-        if (this.tipWidth > 0 || this.tipHeight > 0) {
-            this.path.lineTo(this.originX + this.tipWidth, this.originY - this.handLength + this.tipHeight);
-        }
-
-        this.path.lineTo(this.originX + this.baseWidth, this.originY);
+        this.path.reset();
 
-        if (this.tailLength > 0) {
-            if (this.tipWidth > 0 || this.tipHeight > 0) {
-                this.path.lineTo(this.originX + this.tipWidth, this.originY + this.tailLength - this.tipHeight);
+        final float[] points = this.getPathPoints();
+        for (int i = 0; i < this.getPathPointCount(); i++) {
+            if (i == 0) {
+                this.path.moveTo(points[0], points[1]);
+            } else {
+                this.path.lineTo(points[i * 2], points[i * 2 + 1]);
             }
+        }
 
-            this.path.lineTo(this.originX, this.originY + this.tailLength);
-            this.path.lineTo(this.originX, this.originY + this.tailLength);
-
-            if (this.tipWidth > 0 || this.tipHeight > 0) {
-                this.path.lineTo(this.originX - this.tipWidth, this.originY + this.tailLength - this.tipHeight);
-            }
+        if (this.getPathPointCount() > 0 && this.getCircleRadius() > 0) {
+            this.path.addCircle(this.getOriginX(), this.getOriginY(), this.getCircleRadius(), Path.Direction.CW);
         }
+    }
 
-        this.path.lineTo(this.originX - this.baseWidth, this.originY);
+    // Rasterizes the current path into a sprite bitmap, baking in the paint's shadow layer and path effect.
+    // The padding needs to be large enough to contain whatever the paint draws outside of the path itself.
+    public void rebuildSprite(Paint paint, float padding) {
+        this.recycleSprite();
 
-        if (this.tipWidth > 0 || this.tipHeight > 0) {
-            this.path.lineTo(this.originX - this.tipWidth, this.originY - this.handLength + this.tipHeight);
+        if (this.path.isEmpty()) {
+            return;
         }
 
-        this.path.lineTo(this.originX, this.originY - this.handLength);
+        this.path.computeBounds(this.spriteBounds, true);
+        this.spriteLeft = (float) Math.floor(this.spriteBounds.left - padding);
+        this.spriteTop = (float) Math.floor(this.spriteBounds.top - padding);
+        final int width = (int) Math.ceil(this.spriteBounds.right + padding - this.spriteLeft);
+        final int height = (int) Math.ceil(this.spriteBounds.bottom + padding - this.spriteTop);
+
+        this.sprite = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        this.spriteCanvas.setBitmap(this.sprite);
+        this.spriteCanvas.save();
+        this.spriteCanvas.translate(-this.spriteLeft, -this.spriteTop);
+        this.spriteCanvas.drawPath(this.path, paint);
+        this.spriteCanvas.restore();
+        this.spriteCanvas.setBitmap(null);
+    }
 
-        if (this.circleRadius > 0) {
-            this.path.addCircle(this.originX, this.originY, this.circleRadius, Path.Direction.CW);
+    public void recycleSprite() {
+        if (this.sprite != null) {
+            this.sprite.recycle();
+            this.sprite = null;
         }
     }
 }
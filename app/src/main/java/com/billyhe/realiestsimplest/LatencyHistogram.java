@@ -0,0 +1,84 @@
+package com.billyhe.realiestsimplest;
+
+import lombok.Getter;
+
+// Fixed-size, log-linear latency histogram (in the spirit of HdrHistogram): values are bucketed by their power of two,
+// and each power of two is split into linear sub-buckets, bounding the relative error at 1 / SUB_BUCKET_COUNT.
+// Recording never allocates.
+public class LatencyHistogram {
+    // Values are recorded in units of 1024ns (~1us).
+    private static final int UNIT_SHIFT = 10;
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << LatencyHistogram.SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = 64 * LatencyHistogram.SUB_BUCKET_COUNT;
+
+    private final long[] counts = new long[LatencyHistogram.BUCKET_COUNT];
+
+    @Getter private long count = 0;
+    @Getter private long totalNanos = 0;
+    @Getter private long maxNanos = 0;
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+
+        this.counts[LatencyHistogram.getBucketIndex(nanos >>> LatencyHistogram.UNIT_SHIFT)]++;
+        this.count++;
+        this.totalNanos += nanos;
+        if (nanos > this.maxNanos) {
+            this.maxNanos = nanos;
+        }
+    }
+
+    // Returns the (upper bound of the bucket holding the) value at the given percentile, between 0 and 100.
+    public long getPercentileNanos(double percentile) {
+        if (this.count == 0) {
+            return 0;
+        }
+
+        final long target = Math.max(1, (long) Math.ceil(this.count * percentile / 100.0));
+        long cumulative = 0;
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            cumulative += this.counts[i];
+            if (cumulative >= target) {
+                return Math.min(this.maxNanos, LatencyHistogram.getBucketLowerBound(i + 1) << LatencyHistogram.UNIT_SHIFT);
+            }
+        }
+        return this.maxNanos;
+    }
+
+    public long getMeanNanos() {
+        return this.count > 0 ? this.totalNanos / this.count : 0;
+    }
+
+    public void reset() {
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            this.counts[i] = 0;
+        }
+        this.count = 0;
+        this.totalNanos = 0;
+        this.maxNanos = 0;
+    }
+
+    private static int getBucketIndex(long units) {
+        if (units < LatencyHistogram.SUB_BUCKET_COUNT) {
+            return (int) units;
+        }
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(units);
+        final int subBucket = (int) (units >>> (exponent - LatencyHistogram.SUB_BUCKET_BITS)) & (LatencyHistogram.SUB_BUCKET_COUNT - 1);
+        return Math.min(LatencyHistogram.BUCKET_COUNT - 1, (exponent - LatencyHistogram.SUB_BUCKET_BITS + 1) * LatencyHistogram.SUB_BUCKET_COUNT + subBucket);
+    }
+
+    private static long getBucketLowerBound(int index) {
+        if (index < LatencyHistogram.SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        final int exponent = index / LatencyHistogram.SUB_BUCKET_COUNT + LatencyHistogram.SUB_BUCKET_BITS - 1;
+        final int subBucket = index % LatencyHistogram.SUB_BUCKET_COUNT;
+        return (long) (LatencyHistogram.SUB_BUCKET_COUNT + subBucket) << (exponent - LatencyHistogram.SUB_BUCKET_BITS);
+    }
+}
@@ -1,27 +1,58 @@
 package com.billyhe.realiestsimplest;
 
 import android.content.BroadcastReceiver;
+import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.CornerPathEffect;
 import android.graphics.Paint;
-import android.graphics.Path;
 import android.graphics.Rect;
 import android.graphics.Typeface;
 import android.icu.text.SimpleDateFormat;
+import android.icu.util.TimeZone;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Debug;
 import android.os.Handler;
+import android.os.Looper;
 import android.os.Message;
+import android.os.Process;
+import android.os.SystemClock;
+import android.support.wearable.complications.ComplicationData;
+import android.support.wearable.complications.ComplicationHelperActivity;
+import android.support.wearable.complications.SystemProviders;
 import android.support.wearable.watchface.CanvasWatchFaceService;
+import android.support.wearable.watchface.WatchFaceService;
 import android.support.wearable.watchface.WatchFaceStyle;
+import android.view.Choreographer;
 import android.view.SurfaceHolder;
-
+import android.view.WindowManager;
+
+import com.billyhe.realiestsimplest.core.Clock;
+import com.billyhe.realiestsimplest.core.ClockPose;
+import com.billyhe.realiestsimplest.core.EngineTrace;
+import com.billyhe.realiestsimplest.core.FaceLayout;
+import com.billyhe.realiestsimplest.core.NotificationIndicator;
+import com.billyhe.realiestsimplest.core.RedrawScheduler;
+import com.billyhe.realiestsimplest.core.TickSchedule;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.lang.ref.WeakReference;
-import java.util.Calendar;
+import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.TimeZone;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 public class RealiestSimplestFace extends CanvasWatchFaceService {
@@ -29,26 +60,92 @@ public class RealiestSimplestFace extends CanvasWatchFaceService {
     // We update once a second to advance the second hand.
     private static final long INTERACTIVE_UPDATE_RATE_MS = TimeUnit.SECONDS.toMillis(1);
 
+    // Ambient mode updates once a minute.
+    private static final long AMBIENT_UPDATE_RATE_MS = TimeUnit.MINUTES.toMillis(1);
+
     // Handler message id for updating the time periodically in interactive mode.
     private static final int MSG_UPDATE_TIME = 0;
 
+    // Assumed when the display doesn't report a refresh rate.
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    // Frames composed per render quality when calibrating, a frame interval apart.
+    private static final int CALIBRATION_FRAMES = 5;
+
+    // Complications sit inside the dial at 9 and 3 o'clock.
+    static final int LEFT_COMPLICATION_ID = 0;
+    static final int RIGHT_COMPLICATION_ID = 1;
+    private static final int[] COMPLICATION_IDS = { RealiestSimplestFace.LEFT_COMPLICATION_ID, RealiestSimplestFace.RIGHT_COMPLICATION_ID };
+
+    // Complication data arriving within this long of the last update is coalesced into a single update.
+    private static final long COMPLICATION_UPDATE_INTERVAL_MS = TimeUnit.SECONDS.toMillis(2);
+
+    // Engine events kept while tracing is on; a day takes about 2000 of them (mostly ambient time ticks).
+    private static final int TRACE_CAPACITY = 8192;
+
+    // How long a dump waits for its command to run on the engine's thread before dumping without it.
+    private static final long DUMP_COMMAND_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(1);
+
+    // Battery percentage at or below which the battery is considered low when the engine starts.
+    private static final int LOW_BATTERY_PERCENTAGE = 15;
+
     // Style constants.
     private static final float STROKE_WIDTH = 2f;
-    private static final float RIM_RADIUS_PERCENTAGE = 0.95f;
     private static final float RIM_TEXT_FONT_SIZE = 16f;
+    private static final float MARKER_RADIUS = 3f;
     private static final float RIM_TEXT_PADDING_ANGLE = 5f;
-    private static final float HOUR_HAND_LENGTH_PERCENTAGE = 0.60f;
-    private static final float MINUTE_HAND_LENGTH_PERCENTAGE = 0.80f;
-    private static final float SECOND_HAND_LENGTH_PERCENTAGE = 0.90f;
-    private static final float SECOND_HAND_TAIL_PERCENTAGE = 0.3f;
+    private static final float HAND_SPRITE_PADDING = 4f;
+    private static final float DEBUG_OVERLAY_FONT_SIZE = 14f;
+
+    // Kept across engines (and instances of the service) for as long as the process lives.
+    private static final WakeupAccounting WAKEUP_ACCOUNTING = new WakeupAccounting();
+
+    // Engines are added and removed on the main thread, but iterated by dumps on a binder thread.
+    private final List<Engine> engines = new CopyOnWriteArrayList<>();
+
+    private long serviceCreatedNanos;
+
+    @Override
+    public void onCreate() {
+        this.serviceCreatedNanos = SystemClock.elapsedRealtimeNanos();
+        super.onCreate();
+    }
 
     @Override
     public Engine onCreateEngine() {
-        return new Engine();
+        Engine engine = this.createEngine(new StartupTimings(Process.getStartElapsedRealtime(), this.serviceCreatedNanos));
+        this.engines.add(engine);
+        return engine;
+    }
+
+    // Overridden by tests, to run engines on a simulated clock.
+    Engine createEngine(StartupTimings startupTimings) {
+        return new Engine(startupTimings, Clock.SYSTEM);
     }
 
-    private class Engine extends CanvasWatchFaceService.Engine {
-        private Calendar calendar;
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(fd, writer, args);
+
+        for (Engine engine : this.engines) {
+            engine.dump(writer, args);
+        }
+
+        writer.println("Wakeups:");
+        RealiestSimplestFace.WAKEUP_ACCOUNTING.dump(writer, "  ");
+    }
+
+    class Engine extends CanvasWatchFaceService.Engine {
+        private final StartupTimings startupTimings;
+        // Every read of the current time goes through here, so that the engine can be run on a simulated clock.
+        private final Clock clock;
+        // Only allocated while tracing is on (the engine_trace_enabled resource, or the "trace on" dump command).
+        private EngineTrace trace;
+        // Zone last recorded in the trace; zone changes while invisible are only noticed once visible again.
+        private String tracedZoneId;
+
+        private ClockPose clockPose;
+        private final Date statusTextDate = new Date();
         private SimpleDateFormat dowFormatter;
         private SimpleDateFormat dateFormatter;
 
@@ -56,40 +153,150 @@ public class RealiestSimplestFace extends CanvasWatchFaceService {
         private HandBuilder minuteHandBuilder;
         private HandBuilder secondHandBuilder;
 
+        private DialBuilder interactiveDialBuilder;
+        private DialBuilder ambientDialBuilder;
+
+        private ArcTextBuilder dowTextBuilder;
+        private ArcTextBuilder dateTextBuilder;
+        private long statusTextDay = Long.MIN_VALUE;
+
+        // Complications are baked into the dial layers, so they cost nothing per frame until their content changes.
+        private ComplicationSlot[] complicationSlots;
+        private long complicationUpdateUptimeMs = Long.MIN_VALUE / 2;
+        private boolean isComplicationUpdatePosted = false;
+        // Minute the complications were last checked for time-dependent changes (e.g. relative times) in interactive
+        // mode; ambient mode checks them ahead on every frame, for the prerendered next minute.
+        private long complicationMinute = Long.MIN_VALUE;
+        // Dial layers whose complications changed while the other mode was showing; rebuilt when switching to them.
+        private boolean isInteractiveDialStale = false;
+        private boolean isAmbientDialStale = false;
+
+        private final Runnable complicationUpdateTask = new Runnable() {
+            @Override
+            public void run() {
+                isComplicationUpdatePosted = false;
+                complicationUpdateUptimeMs = SystemClock.uptimeMillis();
+                if (updateComplications(clock.currentTimeMillis())) {
+                    redrawScheduler.request(RedrawScheduler.Reason.COMPLICATIONS);
+                } else {
+                    redrawScheduler.skip(RedrawScheduler.Reason.COMPLICATIONS);
+                }
+            }
+        };
+
         private int notificationCount;
         private int unreadCount;
+        private int notificationIndicator = NotificationIndicator.NONE;
 
         private boolean hasRegisteredTimeZoneReceiver = false;
+        private boolean hasRegisteredBatteryReceiver = false;
         private boolean isInAmbientMode;
+        private boolean isLowBitAmbient = false;
+        private boolean hasBurnInProtection = false;
 
         private float faceWidth;
         private float faceHeight;
+        private final FaceLayout faceLayout = new FaceLayout();
 
         private float centerX;
         private float centerY;
         private float rimRadius;
-        private float rimCircumference;
-
-        private Path textCircle;
 
         private Paint backgroundPaint;
         private Paint foregroundPaint;
+        private Paint ambientForegroundPaint;
         private Paint dowPaint;
         private Paint datePaint;
         private Paint handsPaint;
         private Paint secondHandPaint;
+        private Paint ambientHandsPaint;
+        private Paint ambientOutlinePaint;
+
+        private FrameCompositor handCompositor;
+        private final float[] handRotations = new float[3];
+        private float[] handMeshVertices = new float[0];
+
+        private final FrameTimings frameTimings = new FrameTimings();
+        private boolean isDebugOverlayEnabled = false;
+        private Paint debugOverlayPaint;
+        private final StringBuilder debugOverlayText = new StringBuilder();
+        private String traceResult;
+
+        // Renders the next minute's ambient frame ahead of the minute tick. The fields below it are only used
+        // on its background thread.
+        private FramePrerenderer ambientPrerenderer;
+        private final ClockPose ambientPrerenderClockPose = new ClockPose();
+        private float[] ambientPrerenderMeshVertices = new float[0];
+        // Never enabled; used where timings must not be recorded, e.g. on prerender threads.
+        private final FrameTimings disabledTimings = new FrameTimings();
 
         private final BroadcastReceiver timeZoneReceiver = new BroadcastReceiver() {
             @Override
             public void onReceive(Context context, Intent intent) {
-                calendar.setTimeZone(TimeZone.getDefault());
-                invalidate();
+                recordTimeZone(clock.currentTimeMillis());
+                updateTimeZone();
+                redrawScheduler.request(RedrawScheduler.Reason.TIME_ZONE);
+            }
+        };
+
+        private final BroadcastReceiver batteryReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                if (frameRateGovernor.setBatteryLow(Intent.ACTION_BATTERY_LOW.equals(intent.getAction()))) {
+                    updateTimer();
+                }
             }
         };
 
         // Handler to update the time once a second in interactive mode.
         private final Handler updateTimeHandler = new EngineHandler(this);
 
+        private RedrawScheduler redrawScheduler;
+
+        private RenderQualitySelector renderQualitySelector;
+        // Quality the layers and sprites are currently built for.
+        private RenderQuality renderQuality;
+        // Set once there is a surface, until the quality has been selected for it after the next interactive frame.
+        private boolean isRenderQualitySelectionPending = false;
+
+        private final RenderQualitySelector.Calibration renderQualityCalibration = new RenderQualitySelector.Calibration() {
+            @Override
+            public long measureFrameNanos(RenderQuality quality) {
+                return measureRenderQuality(quality);
+            }
+        };
+
+        private final Runnable renderQualityUpdateTask = new Runnable() {
+            @Override
+            public void run() {
+                updateRenderQuality();
+            }
+        };
+
+        // Governs the smooth-sweep frame rate; null when sweep mode is disabled.
+        private FrameRateGovernor frameRateGovernor;
+        private Choreographer choreographer;
+        // Duration of a single display refresh, used to align sweep frames to vsync.
+        private long vsyncPeriodMs;
+
+        // Frame callback to update the time at the sweep frame rate in interactive mode.
+        private final Choreographer.FrameCallback sweepFrameCallback = new Choreographer.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                recordWakeup();
+                redrawScheduler.tick();
+                if (shouldTimerBeRunning() && frameRateGovernor.isSweeping()) {
+                    scheduleSweepFrame();
+                }
+            }
+        };
+
+        Engine(StartupTimings startupTimings, Clock clock) {
+            this.startupTimings = startupTimings;
+            this.clock = clock;
+            this.startupTimings.mark(StartupTimings.Milestone.ENGINE_CREATED);
+        }
+
         @Override
         public void onCreate(SurfaceHolder holder) {
             super.onCreate(holder);
@@ -102,7 +309,25 @@ public class RealiestSimplestFace extends CanvasWatchFaceService {
                             .build()
             );
 
-            this.calendar = Calendar.getInstance();
+            final Executor redrawExecutor = new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    updateTimeHandler.post(command);
+                }
+            };
+            this.redrawScheduler = new RedrawScheduler(redrawExecutor, new RedrawScheduler.Target() {
+                @Override
+                public boolean isTickScheduled() {
+                    return shouldTimerBeRunning();
+                }
+
+                @Override
+                public void redraw() {
+                    invalidate();
+                }
+            });
+
+            this.clockPose = new ClockPose();
             this.dowFormatter = new SimpleDateFormat("EEE");
             this.dateFormatter = new SimpleDateFormat("MMM d");
 
@@ -130,7 +355,20 @@ public class RealiestSimplestFace extends CanvasWatchFaceService {
 
             this.foregroundPaint = new Paint();
             this.foregroundPaint.setColor(Color.WHITE);
-            this.foregroundPaint.setAntiAlias(true);
+
+            this.ambientForegroundPaint = new Paint();
+            this.ambientForegroundPaint.setColor(Color.GRAY);
+            this.ambientForegroundPaint.setAntiAlias(true);
+
+            this.interactiveDialBuilder = new DialBuilder();
+            this.interactiveDialBuilder.setMarkerRadius(RealiestSimplestFace.MARKER_RADIUS);
+            this.interactiveDialBuilder.setBackgroundPaint(this.backgroundPaint);
+            this.interactiveDialBuilder.setMarkerPaint(this.foregroundPaint);
+
+            this.ambientDialBuilder = new DialBuilder();
+            this.ambientDialBuilder.setMarkerRadius(RealiestSimplestFace.MARKER_RADIUS);
+            this.ambientDialBuilder.setBackgroundPaint(this.backgroundPaint);
+            this.ambientDialBuilder.setMarkerPaint(this.ambientForegroundPaint);
 
             this.dowPaint = new Paint();
             this.dowPaint.setStyle(Paint.Style.FILL_AND_STROKE);
@@ -138,7 +376,6 @@ public class RealiestSimplestFace extends CanvasWatchFaceService {
             this.dowPaint.setTypeface(Typeface.MONOSPACE);
             this.dowPaint.setTextSize(RealiestSimplestFace.RIM_TEXT_FONT_SIZE);
             this.dowPaint.setTextAlign(Paint.Align.RIGHT);
-            this.dowPaint.setAntiAlias(true);
 
             this.datePaint = new Paint();
             this.datePaint.setStyle(Paint.Style.FILL_AND_STROKE);
@@ -146,61 +383,334 @@ public class RealiestSimplestFace extends CanvasWatchFaceService {
             this.datePaint.setTypeface(Typeface.MONOSPACE);
             this.datePaint.setTextSize(RealiestSimplestFace.RIM_TEXT_FONT_SIZE);
             this.datePaint.setTextAlign(Paint.Align.LEFT);
-            this.datePaint.setAntiAlias(true);
+
+            this.dowTextBuilder = new ArcTextBuilder();
+            this.dowTextBuilder.setPaint(this.dowPaint);
+            this.dowTextBuilder.setAnchorAngle(270f - RealiestSimplestFace.RIM_TEXT_PADDING_ANGLE);
+
+            this.dateTextBuilder = new ArcTextBuilder();
+            this.dateTextBuilder.setPaint(this.datePaint);
+            this.dateTextBuilder.setAnchorAngle(270f + RealiestSimplestFace.RIM_TEXT_PADDING_ANGLE);
+
+            this.interactiveDialBuilder.setTextBuilders(new ArcTextBuilder[] { this.dowTextBuilder, this.dateTextBuilder });
+
+            final Runnable complicationInvalidationCallback = new Runnable() {
+                @Override
+                public void run() {
+                    scheduleComplicationUpdate();
+                }
+            };
+            this.complicationSlots = new ComplicationSlot[RealiestSimplestFace.COMPLICATION_IDS.length];
+            for (int i = 0; i < RealiestSimplestFace.COMPLICATION_IDS.length; i++) {
+                this.complicationSlots[i] = new ComplicationSlot(RealiestSimplestFace.this, RealiestSimplestFace.COMPLICATION_IDS[i], complicationInvalidationCallback);
+            }
+            this.setActiveComplications(RealiestSimplestFace.COMPLICATION_IDS);
+            this.setDefaultSystemComplicationProvider(RealiestSimplestFace.LEFT_COMPLICATION_ID, SystemProviders.WATCH_BATTERY, ComplicationData.TYPE_RANGED_VALUE);
+            this.setDefaultSystemComplicationProvider(RealiestSimplestFace.RIGHT_COMPLICATION_ID, SystemProviders.STEP_COUNT, ComplicationData.TYPE_SHORT_TEXT);
+
+            this.interactiveDialBuilder.setDecoration(new DialBuilder.Decoration() {
+                @Override
+                public void draw(Canvas canvas) {
+                    drawComplications(canvas, false);
+                }
+            });
+            this.ambientDialBuilder.setDecoration(new DialBuilder.Decoration() {
+                @Override
+                public void draw(Canvas canvas) {
+                    drawComplications(canvas, true);
+                }
+            });
 
             this.handsPaint = new Paint();
             this.handsPaint.setColor(Color.WHITE);
             this.handsPaint.setStyle(Paint.Style.FILL);
             this.handsPaint.setStrokeWidth(RealiestSimplestFace.STROKE_WIDTH);
-            this.handsPaint.setAntiAlias(true);
             this.handsPaint.setStrokeCap(Paint.Cap.ROUND);
             this.handsPaint.setStrokeJoin(Paint.Join.ROUND);
-            this.handsPaint.setPathEffect(new CornerPathEffect(2));
-            this.handsPaint.setShadowLayer(1, 0, 0, Color.BLACK);
 
             this.secondHandPaint = new Paint();
             this.secondHandPaint.setColor(Color.rgb(255, 87, 34));
             this.secondHandPaint.setStyle(Paint.Style.FILL);
             this.secondHandPaint.setStrokeWidth(RealiestSimplestFace.STROKE_WIDTH);
-            this.secondHandPaint.setAntiAlias(true);
-            this.secondHandPaint.setShadowLayer(1, 0, 0, Color.BLACK);
 
-            this.textCircle = new Path();
+            this.ambientHandsPaint = new Paint();
+            this.ambientHandsPaint.setColor(Color.WHITE);
+            this.ambientHandsPaint.setStyle(Paint.Style.FILL);
+            this.ambientHandsPaint.setAntiAlias(true);
+
+            this.ambientOutlinePaint = new Paint();
+            this.ambientOutlinePaint.setColor(Color.WHITE);
+            this.ambientOutlinePaint.setStyle(Paint.Style.STROKE);
+            this.ambientOutlinePaint.setStrokeWidth(RealiestSimplestFace.STROKE_WIDTH);
+            this.ambientOutlinePaint.setAntiAlias(true);
+
+            this.ambientPrerenderer = new FramePrerenderer("AmbientPrerenderer", this.clock, new FramePrerenderer.Renderer() {
+                @Override
+                public void render(Canvas canvas, long timeMs) {
+                    ambientPrerenderClockPose.update(timeMs);
+                    drawAmbientFrame(canvas, ambientPrerenderClockPose, ambientPrerenderMeshVertices, disabledTimings);
+                }
+            });
+
+            this.handCompositor = new FrameCompositor(this.hourHandBuilder, this.minuteHandBuilder, this.secondHandBuilder);
+            // Not timed on its own: its cost is part of the composite phase.
+            this.handCompositor.setOverlay(new FrameCompositor.Overlay() {
+                @Override
+                public void draw(Canvas canvas) {
+                    drawNotificationIndicator(canvas, false);
+                }
+            });
+
+            if (RealiestSimplestFace.this.getResources().getBoolean(R.bool.engine_trace_enabled)) {
+                this.startTrace();
+            }
+
+            this.isDebugOverlayEnabled = RealiestSimplestFace.this.getResources().getBoolean(R.bool.debug_overlay_enabled);
+            this.frameTimings.setEnabled(this.isDebugOverlayEnabled || RealiestSimplestFace.this.getResources().getBoolean(R.bool.frame_timing_enabled));
+
+            final int sweepFrameRate = RealiestSimplestFace.this.getResources().getInteger(R.integer.sweep_frame_rate);
+            if (sweepFrameRate > 0) {
+                this.frameRateGovernor = new FrameRateGovernor(sweepFrameRate);
+                this.frameRateGovernor.setBatteryLow(this.isBatteryLow());
+                this.choreographer = Choreographer.getInstance();
+                this.vsyncPeriodMs = this.getVsyncPeriodMs();
+            }
 
             this.notificationCount = getNotificationCount();
             this.unreadCount = getUnreadCount();
+            this.notificationIndicator = NotificationIndicator.get(this.notificationCount, this.unreadCount);
+            final long timeMs = this.clock.currentTimeMillis();
+            this.recordEvent(timeMs, EngineTrace.Event.NOTIFICATION_COUNT, this.notificationCount);
+            this.recordEvent(timeMs, EngineTrace.Event.UNREAD_COUNT, this.unreadCount);
+
+            // Getting the preferences only starts loading them in the background; they're read after the first frame.
+            this.renderQualitySelector = new RenderQualitySelector(
+                    RealiestSimplestFace.this.getSharedPreferences("render_quality", Context.MODE_PRIVATE),
+                    this.getPinnedRenderQuality()
+            );
+
+            this.startupTimings.mark(StartupTimings.Milestone.ENGINE_INITIALIZED);
+        }
+
+        // The render_quality resource, unless a pin for this model overrides it; null means automatic.
+        private RenderQuality getPinnedRenderQuality() {
+            String quality = RealiestSimplestFace.this.getString(R.string.render_quality);
+            for (String pin : RealiestSimplestFace.this.getResources().getStringArray(R.array.render_quality_pins)) {
+                final int separator = pin.lastIndexOf('=');
+                if (separator > 0 && pin.substring(0, separator).equals(Build.MODEL)) {
+                    quality = pin.substring(separator + 1);
+                }
+            }
+            return RenderQuality.parse(quality);
+        }
+
+        private long getVsyncPeriodMs() {
+            final WindowManager windowManager = RealiestSimplestFace.this.getSystemService(WindowManager.class);
+            float refreshRate = windowManager != null ? windowManager.getDefaultDisplay().getRefreshRate() : 0;
+            if (refreshRate <= 0) {
+                refreshRate = RealiestSimplestFace.DEFAULT_REFRESH_RATE;
+            }
+            return (long) (TimeUnit.SECONDS.toMillis(1) / refreshRate);
+        }
+
+        private boolean isBatteryLow() {
+            BatteryManager batteryManager = RealiestSimplestFace.this.getSystemService(BatteryManager.class);
+            return batteryManager != null && batteryManager.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY) <= RealiestSimplestFace.LOW_BATTERY_PERCENTAGE;
         }
 
         @Override
         public void onDestroy() {
             this.updateTimeHandler.removeMessages(RealiestSimplestFace.MSG_UPDATE_TIME);
+            this.updateTimeHandler.removeCallbacks(this.renderQualityUpdateTask);
+            this.updateTimeHandler.removeCallbacks(this.complicationUpdateTask);
+            this.redrawScheduler.cancel();
+            if (this.choreographer != null) {
+                this.choreographer.removeFrameCallback(this.sweepFrameCallback);
+            }
+            RealiestSimplestFace.this.engines.remove(this);
+            this.interactiveDialBuilder.recycle();
+            this.ambientDialBuilder.recycle();
+            this.hourHandBuilder.recycleSprite();
+            this.minuteHandBuilder.recycleSprite();
+            this.secondHandBuilder.recycleSprite();
+            for (ComplicationSlot slot : this.complicationSlots) {
+                slot.recycle();
+            }
+            this.handCompositor.recycle();
+            this.ambientPrerenderer.quit();
             super.onDestroy();
         }
 
         @Override
         public void onTimeTick() {
             super.onTimeTick();
-            this.invalidate();
+            final long timeMs = this.clock.currentTimeMillis();
+            this.recordEvent(timeMs, EngineTrace.Event.TIME_TICK, 0);
+            RealiestSimplestFace.WAKEUP_ACCOUNTING.record(timeMs, WakeupAccounting.Counter.TIME_TICKS, this.isInAmbientMode, this.isVisible(), 1);
+
+            // While the timer is running it redraws more often than this anyway.
+            if (this.shouldTimerBeRunning()) {
+                this.redrawScheduler.skip(RedrawScheduler.Reason.TICK);
+            } else {
+                this.redrawScheduler.tick();
+            }
         }
 
         @Override
         public void onNotificationCountChanged(int count) {
+            this.recordEvent(this.clock.currentTimeMillis(), EngineTrace.Event.NOTIFICATION_COUNT, count);
             this.notificationCount = count;
+            this.updateNotificationIndicator();
         }
 
         @Override
         public void onUnreadCountChanged(int count) {
+            this.recordEvent(this.clock.currentTimeMillis(), EngineTrace.Event.UNREAD_COUNT, count);
             this.unreadCount = count;
+            this.updateNotificationIndicator();
+        }
+
+        // Most count changes don't change the indicator, and need no redraw.
+        private void updateNotificationIndicator() {
+            final int notificationIndicator = NotificationIndicator.get(this.notificationCount, this.unreadCount);
+            if (this.notificationIndicator == notificationIndicator) {
+                this.redrawScheduler.skip(RedrawScheduler.Reason.NOTIFICATION_INDICATOR);
+                return;
+            }
+
+            this.ambientPrerenderer.cancel();
+            this.notificationIndicator = notificationIndicator;
+            this.handCompositor.invalidate();
+            this.redrawScheduler.request(RedrawScheduler.Reason.NOTIFICATION_INDICATOR);
+        }
+
+        @Override
+        public void onPropertiesChanged(Bundle properties) {
+            super.onPropertiesChanged(properties);
+
+            this.ambientPrerenderer.cancel();
+            this.isLowBitAmbient = properties.getBoolean(WatchFaceService.PROPERTY_LOW_BIT_AMBIENT, false);
+            this.hasBurnInProtection = properties.getBoolean(WatchFaceService.PROPERTY_BURN_IN_PROTECTION, false);
+
+            // Low-bit displays can't show gray or anti-aliased edges in ambient mode.
+            this.ambientForegroundPaint.setColor(this.isLowBitAmbient ? Color.WHITE : Color.GRAY);
+            this.ambientForegroundPaint.setAntiAlias(!this.isLowBitAmbient);
+            this.ambientHandsPaint.setAntiAlias(!this.isLowBitAmbient);
+            this.ambientOutlinePaint.setAntiAlias(!this.isLowBitAmbient);
+
+            // Complications render their ambient variant for these properties too.
+            final long timeMs = this.clock.currentTimeMillis();
+            for (ComplicationSlot slot : this.complicationSlots) {
+                slot.setAmbientProperties(this.isLowBitAmbient, this.hasBurnInProtection);
+                slot.updateContent(timeMs);
+                slot.render();
+            }
+            this.isInteractiveDialStale = true;
+            this.isAmbientDialStale = true;
+            this.rebuildStaleDial();
+            this.redrawScheduler.request(RedrawScheduler.Reason.PROPERTIES);
+        }
+
+        @Override
+        public void onComplicationDataUpdate(int watchFaceComplicationId, ComplicationData data) {
+            for (ComplicationSlot slot : this.complicationSlots) {
+                if (slot.getId() == watchFaceComplicationId) {
+                    slot.setPendingData(data);
+                }
+            }
+            this.scheduleComplicationUpdate();
+        }
+
+        @Override
+        public void onTapCommand(int tapType, int x, int y, long eventTime) {
+            if (tapType != WatchFaceService.TAP_TYPE_TAP) {
+                return;
+            }
+
+            for (ComplicationSlot slot : this.complicationSlots) {
+                if (!slot.contains(x, y)) {
+                    continue;
+                }
+
+                if (slot.getData().getType() == ComplicationData.TYPE_NO_PERMISSION) {
+                    // Providers like the step count need the user to grant us access to their data first.
+                    final Intent intent = ComplicationHelperActivity.createPermissionRequestHelperIntent(RealiestSimplestFace.this, new ComponentName(RealiestSimplestFace.this, RealiestSimplestFace.class));
+                    intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+                    RealiestSimplestFace.this.startActivity(intent);
+                } else {
+                    slot.sendTapAction();
+                }
+                return;
+            }
+        }
+
+        // Providers tend to send data for several complications at once, and some update every few seconds, so
+        // updates are held back until the interval since the last one has passed.
+        private void scheduleComplicationUpdate() {
+            if (this.isComplicationUpdatePosted) {
+                return;
+            }
+
+            this.isComplicationUpdatePosted = true;
+            final long delayMs = Math.max(0, this.complicationUpdateUptimeMs + RealiestSimplestFace.COMPLICATION_UPDATE_INTERVAL_MS - SystemClock.uptimeMillis());
+            this.updateTimeHandler.postDelayed(this.complicationUpdateTask, delayMs);
+        }
+
+        // Re-renders complications whose content changed by the given time, and the current mode's dial layer they
+        // are baked into; the other mode's layer waits until it is shown. Returns whether anything changed.
+        private boolean updateComplications(long timeMs) {
+            boolean changed = false;
+            for (ComplicationSlot slot : this.complicationSlots) {
+                changed |= slot.updateContent(timeMs);
+            }
+            if (!changed) {
+                return false;
+            }
+
+            this.ambientPrerenderer.cancel();
+            for (ComplicationSlot slot : this.complicationSlots) {
+                slot.render();
+            }
+            this.isInteractiveDialStale = true;
+            this.isAmbientDialStale = true;
+            this.rebuildStaleDial();
+            return true;
+        }
+
+        // Rebuilds the current mode's dial layer if its complications changed since it was built.
+        private void rebuildStaleDial() {
+            if (this.isInAmbientMode) {
+                if (this.isAmbientDialStale) {
+                    this.isAmbientDialStale = false;
+                    this.rebuildDialBuilder(this.ambientDialBuilder);
+                }
+            } else if (this.isInteractiveDialStale) {
+                this.isInteractiveDialStale = false;
+                this.rebuildDialBuilder(this.interactiveDialBuilder);
+                this.handCompositor.setBackground(this.interactiveDialBuilder.getBitmap());
+                this.handCompositor.invalidate();
+            }
+        }
+
+        private void drawComplications(Canvas canvas, boolean ambient) {
+            for (ComplicationSlot slot : this.complicationSlots) {
+                slot.draw(canvas, ambient);
+            }
         }
 
         @Override
         public void onAmbientModeChanged(boolean inAmbientMode) {
             super.onAmbientModeChanged(inAmbientMode);
+            this.recordEvent(this.clock.currentTimeMillis(), EngineTrace.Event.AMBIENT_MODE, inAmbientMode ? 1 : 0);
 
             if (this.isInAmbientMode != inAmbientMode) {
+                this.ambientPrerenderer.cancel();
                 this.isInAmbientMode = inAmbientMode;
-                this.foregroundPaint.setColor(this.isInAmbientMode ? Color.GRAY : Color.WHITE);
-                invalidate();
+                this.rebuildStaleDial();
+                // Ambient frames evaluate complications for the next minute, so interactive mode checks them again.
+                this.complicationMinute = Long.MIN_VALUE;
+                this.handCompositor.invalidate();
+                this.redrawScheduler.request(RedrawScheduler.Reason.AMBIENT_MODE);
             }
 
             // Check and trigger whether or not timer should be running (only in active mode).
@@ -215,14 +725,102 @@ public class RealiestSimplestFace extends CanvasWatchFaceService {
             this.faceWidth = width;
             this.faceHeight = height;
 
+            // Draw the first frame at the quality most likely to be selected, and select it (reading the stored one or
+            // calibrating) once that frame is out.
+            this.applyRenderQuality(this.renderQualitySelector.getInitialQuality(width, height));
+            this.isRenderQualitySelectionPending = true;
+
             // Calculate surface element parameters.
             this.calculateSurfaceParameters();
+
+            this.startupTimings.mark(StartupTimings.Milestone.SURFACE_CHANGED);
+        }
+
+        // Paints only affect pre-rendered layers and sprites, so calculateSurfaceParameters() has to follow this.
+        private void applyRenderQuality(RenderQuality quality) {
+            this.ambientPrerenderer.cancel();
+            this.renderQuality = quality;
+
+            this.foregroundPaint.setAntiAlias(quality.isAntiAlias());
+            this.dowPaint.setAntiAlias(quality.isAntiAlias());
+            this.datePaint.setAntiAlias(quality.isAntiAlias());
+            this.handsPaint.setAntiAlias(quality.isAntiAlias());
+            this.secondHandPaint.setAntiAlias(quality.isAntiAlias());
+
+            this.handsPaint.setPathEffect(quality.isRoundedHandCorners() ? new CornerPathEffect(2) : null);
+
+            if (quality.isHandShadows()) {
+                this.handsPaint.setShadowLayer(1, 0, 0, Color.BLACK);
+                this.secondHandPaint.setShadowLayer(1, 0, 0, Color.BLACK);
+            } else {
+                this.handsPaint.clearShadowLayer();
+                this.secondHandPaint.clearShadowLayer();
+            }
+
+            this.handCompositor.setFilterBitmap(quality.isFilterHandSprites());
+        }
+
+        // Selects the render quality again (e.g. after it drifted, or the stored one expired) and rebuilds everything
+        // for it.
+        private void updateRenderQuality() {
+            this.isRenderQualitySelectionPending = false;
+            final RenderQuality quality = this.renderQualitySelector.select((int) this.faceWidth, (int) this.faceHeight, this.renderQualityCalibration, this.clock.currentTimeMillis());
+            if (quality == this.renderQuality) {
+                return;
+            }
+
+            this.applyRenderQuality(quality);
+            this.calculateSurfaceParameters();
+            this.redrawScheduler.request(RedrawScheduler.Reason.RENDER_QUALITY);
+        }
+
+        // Pins the render quality, or goes back to selecting it when null. Also used by tests, to render each quality.
+        void setOverrideQuality(RenderQuality quality) {
+            this.renderQualitySelector.setOverrideQuality(quality);
+            this.updateRenderQuality();
+        }
+
+        // Returns the median cost of composing an interactive frame off-screen at the given quality. Like in onDraw(),
+        // each frame follows on from the previous one a frame interval later, so only the hands' damage is repainted.
+        private long measureRenderQuality(RenderQuality quality) {
+            if (this.faceWidth <= 0 || this.faceHeight <= 0) {
+                return 0;
+            }
+
+            this.applyRenderQuality(quality);
+            this.calculateSurfaceParameters();
+
+            final Bitmap frame = Bitmap.createBitmap((int) this.faceWidth, (int) this.faceHeight, Bitmap.Config.ARGB_8888);
+            final Canvas canvas = new Canvas(frame);
+            final long[] frameNanos = new long[RealiestSimplestFace.CALIBRATION_FRAMES];
+            final long timeMs = this.clock.currentTimeMillis();
+            final long frameIntervalMs = this.isSweeping() ? this.frameRateGovernor.getFrameIntervalMs() : RealiestSimplestFace.INTERACTIVE_UPDATE_RATE_MS;
+
+            // The first frame is a full redraw which also lays out the rim texts, so it isn't measured.
+            this.handCompositor.invalidate();
+            for (int i = -1; i < RealiestSimplestFace.CALIBRATION_FRAMES; i++) {
+                this.clockPose.update(timeMs + (i + 1) * frameIntervalMs);
+
+                final long startNanos = SystemClock.elapsedRealtimeNanos();
+                this.composeWatchFace(canvas, this.clockPose, this.disabledTimings);
+                if (i >= 0) {
+                    frameNanos[i] = SystemClock.elapsedRealtimeNanos() - startNanos;
+                }
+            }
+
+            frame.recycle();
+            Arrays.sort(frameNanos);
+            return frameNanos[RealiestSimplestFace.CALIBRATION_FRAMES / 2];
         }
 
         private void calculateSurfaceParameters() {
-            // Find the coordinates of the center point on the screen.
-            this.centerX = this.faceWidth / 2f;
-            this.centerY = this.faceHeight / 2f;
+            // Stop any prerender before changing what it reads.
+            this.ambientPrerenderer.resize((int) this.faceWidth, (int) this.faceHeight);
+
+            // Find the coordinates of the center point on the screen, and the sizes of everything around it.
+            this.faceLayout.update(this.faceWidth, this.faceHeight);
+            this.centerX = this.faceLayout.getCenterX();
+            this.centerY = this.faceLayout.getCenterY();
 
             // Update origin on hand builders.
             this.hourHandBuilder.setOriginX(this.centerX);
@@ -233,14 +831,13 @@ public class RealiestSimplestFace extends CanvasWatchFaceService {
             this.secondHandBuilder.setOriginY(this.centerY);
 
             // Calculate rim parameters.
-            this.rimRadius = this.faceWidth / 2 * RealiestSimplestFace.RIM_RADIUS_PERCENTAGE;
-            this.rimCircumference =  (float)(2 * Math.PI * this.rimRadius);
+            this.rimRadius = this.faceLayout.getRimRadius();
 
             // Calculate lengths of different hands based on watch screen size.
-            this.hourHandBuilder.setHandLength(this.rimRadius * RealiestSimplestFace.HOUR_HAND_LENGTH_PERCENTAGE);
-            this.minuteHandBuilder.setHandLength(this.rimRadius * RealiestSimplestFace.MINUTE_HAND_LENGTH_PERCENTAGE);
-            this.secondHandBuilder.setHandLength(this.rimRadius * RealiestSimplestFace.SECOND_HAND_LENGTH_PERCENTAGE);
-            this.secondHandBuilder.setTailLength(this.rimRadius * RealiestSimplestFace.SECOND_HAND_TAIL_PERCENTAGE);
+            this.hourHandBuilder.setHandLength(this.faceLayout.getHourHandLength());
+            this.minuteHandBuilder.setHandLength(this.faceLayout.getMinuteHandLength());
+            this.secondHandBuilder.setHandLength(this.faceLayout.getSecondHandLength());
+            this.secondHandBuilder.setTailLength(this.faceLayout.getSecondHandTailLength());
 
             // (Re)build hour hand path.
             this.hourHandBuilder.rebuild();
@@ -251,96 +848,262 @@ public class RealiestSimplestFace extends CanvasWatchFaceService {
             // (Re)build second hand path.
             this.secondHandBuilder.rebuild();
 
-            // (Re)build text path.
-            textCircle.reset();
-            textCircle.addCircle(this.centerX, this.centerY, this.rimRadius, Path.Direction.CW);
+            // (Re)rasterize hand sprites, with shadows and rounded corners baked in.
+            this.hourHandBuilder.rebuildSprite(this.handsPaint, RealiestSimplestFace.HAND_SPRITE_PADDING);
+            this.minuteHandBuilder.rebuildSprite(this.handsPaint, RealiestSimplestFace.HAND_SPRITE_PADDING);
+            this.secondHandBuilder.rebuildSprite(this.secondHandPaint, RealiestSimplestFace.HAND_SPRITE_PADDING);
+
+            // Scratch space for rotating hand meshes, large enough for the largest one.
+            final int meshLength = Math.max(this.hourHandBuilder.getMeshVertices().length, Math.max(this.minuteHandBuilder.getMeshVertices().length, this.secondHandBuilder.getMeshVertices().length));
+            if (this.handMeshVertices.length < meshLength) {
+                this.handMeshVertices = new float[meshLength];
+                this.ambientPrerenderMeshVertices = new float[meshLength];
+            }
+
+            // (Re)layout rim texts for the current day.
+            this.updateArcTextBuilder(this.dowTextBuilder);
+            this.updateArcTextBuilder(this.dateTextBuilder);
+            this.clockPose.update(this.clock.currentTimeMillis());
+            this.statusTextDay = Long.MIN_VALUE;
+            this.updateStatusTexts(this.clockPose);
+
+            // Complications sit halfway between the center and the rim, at 9 and 3 o'clock.
+            final int complicationRadius = (int) this.faceLayout.getComplicationRadius();
+            final float complicationOffset = this.faceLayout.getComplicationOffset();
+            final long complicationTimeMs = this.clock.currentTimeMillis();
+            for (ComplicationSlot slot : this.complicationSlots) {
+                final int complicationX = (int) (slot.getId() == RealiestSimplestFace.LEFT_COMPLICATION_ID ? this.centerX - complicationOffset : this.centerX + complicationOffset);
+                slot.setBounds(complicationX - complicationRadius, (int) this.centerY - complicationRadius, complicationX + complicationRadius, (int) this.centerY + complicationRadius);
+                slot.updateContent(complicationTimeMs);
+                slot.render();
+            }
+
+            // (Re)build pre-rendered dial layers (background + markers + rim texts + complications) for both modes.
+            this.rebuildDialBuilder(this.interactiveDialBuilder);
+            this.rebuildDialBuilder(this.ambientDialBuilder);
+            this.isInteractiveDialStale = false;
+            this.isAmbientDialStale = false;
+
+            // Resize the interactive back buffer, forcing a full redraw on the next frame.
+            this.handCompositor.setPivotX(this.centerX);
+            this.handCompositor.setPivotY(this.centerY);
+            this.handCompositor.setBackground(this.interactiveDialBuilder.getBitmap());
+            this.handCompositor.resize((int) this.faceWidth, (int) this.faceHeight);
+        }
+
+        private void rebuildDialBuilder(DialBuilder dialBuilder) {
+            dialBuilder.setWidth((int) this.faceWidth);
+            dialBuilder.setHeight((int) this.faceHeight);
+            dialBuilder.setCenterX(this.centerX);
+            dialBuilder.setCenterY(this.centerY);
+            dialBuilder.setRimRadius(this.rimRadius);
+            dialBuilder.rebuild();
+        }
+
+        private void updateArcTextBuilder(ArcTextBuilder textBuilder) {
+            textBuilder.setCenterX(this.centerX);
+            textBuilder.setCenterY(this.centerY);
+            textBuilder.setRadius(this.rimRadius);
         }
 
+        // Nothing on the draw path below may allocate in steady state: everything it needs is either pre-rendered,
+        // pre-formatted or a reused scratch object. Only a day rollover (re-formatting the rim texts) allocates.
         @Override
         public void onDraw(Canvas canvas, Rect bounds) {
-            this.calendar.setTimeInMillis(System.currentTimeMillis());
+            final long drawStartNanos = SystemClock.elapsedRealtimeNanos();
+            final long drawStartCpuNanos = Debug.threadCpuTimeNanos();
+            final long frameStartNanos = this.frameTimings.start();
+
+            this.clockPose.update(this.clock.currentTimeMillis());
+            long composeNanos = 0;
+
+            // Complications may show times relative to now, so they're checked for changes once a minute, before
+            // anything is drawn with them.
+            final long minute = Math.floorDiv(this.clockPose.getTimeMs(), RealiestSimplestFace.AMBIENT_UPDATE_RATE_MS);
+            if (this.isInAmbientMode) {
+                final long minuteMs = minute * RealiestSimplestFace.AMBIENT_UPDATE_RATE_MS;
+                if (!this.ambientPrerenderer.draw(canvas, minuteMs)) {
+                    // Nothing was prerendered for this minute (e.g. right after entering ambient mode), draw it now.
+                    this.drawAmbientFrame(canvas, this.clockPose, this.handMeshVertices, this.frameTimings);
+                }
+
+                // Render the next minute's frame while we're awake anyway, so that the next tick only has to blit it.
+                // Its complications are evaluated for that minute first, so that the frame doesn't show this minute's
+                // and no change is left to cancel it and redraw once it's shown.
+                final long nextMinuteMs = minuteMs + RealiestSimplestFace.AMBIENT_UPDATE_RATE_MS;
+                this.updateComplications(nextMinuteMs);
+                this.ambientPrerenderer.prerender(nextMinuteMs, 0);
+            } else {
+                if (minute != this.complicationMinute) {
+                    this.complicationMinute = minute;
+                    this.updateComplications(this.clockPose.getTimeMs());
+                }
+                final long composeStartNanos = SystemClock.elapsedRealtimeNanos();
+                this.composeWatchFace(canvas, this.clockPose, this.frameTimings);
+                composeNanos = SystemClock.elapsedRealtimeNanos() - composeStartNanos;
+            }
+
+            this.frameTimings.record(FrameTimings.Phase.FRAME, this.isInAmbientMode, frameStartNanos);
+
+            if (this.isDebugOverlayEnabled) {
+                this.drawDebugOverlay(canvas);
+            }
+
+            final long drawNanos = SystemClock.elapsedRealtimeNanos() - drawStartNanos;
+            RealiestSimplestFace.WAKEUP_ACCOUNTING.recordDraw(this.clockPose.getTimeMs(), this.isInAmbientMode, this.isVisible(), Debug.threadCpuTimeNanos() - drawStartCpuNanos, this.getExpectedDrawIntervalMs());
 
+            // Let the governor adjust the sweep frame rate based on how long this frame took.
+            if (this.frameRateGovernor != null && !this.isInAmbientMode) {
+                if (this.frameRateGovernor.recordFrame(drawNanos)) {
+                    this.updateTimer();
+                }
+            }
+
+            // Select the render quality after the first interactive frame, lower it if composing frames has drifted
+            // over budget, or calibrate again once the stored quality has expired; all are left until after this
+            // frame. Calibration measures composing too.
+            if (!this.isInAmbientMode && (this.isRenderQualitySelectionPending || this.renderQualitySelector.recordFrame(composeNanos, this.clockPose.getTimeMs()))) {
+                this.updateTimeHandler.removeCallbacks(this.renderQualityUpdateTask);
+                this.updateTimeHandler.post(this.renderQualityUpdateTask);
+            }
+
+            this.startupTimings.mark(StartupTimings.Milestone.FIRST_DRAW);
+        }
+
+        // Draws an ambient frame for the given pose. This also runs on the ambient prerender thread, so it must only
+        // read state that is not modified without cancelling the prerenderer first.
+        private void drawAmbientFrame(Canvas canvas, ClockPose pose, float[] meshVertices, FrameTimings timings) {
+            long phaseStartNanos = timings.start();
             this.drawBackground(canvas);
-            this.drawWatchFace(canvas);
+            timings.record(FrameTimings.Phase.BACKGROUND, true, phaseStartNanos);
+
+            phaseStartNanos = timings.start();
+            this.drawHands(canvas, pose, meshVertices);
+            timings.record(FrameTimings.Phase.HANDS, true, phaseStartNanos);
+
+            phaseStartNanos = timings.start();
+            this.drawNotificationIndicator(canvas, true);
+            timings.record(FrameTimings.Phase.NOTIFICATION_INDICATOR, true, phaseStartNanos);
         }
 
         private void drawBackground(Canvas canvas) {
-            canvas.drawRect(0, 0, canvas.getWidth(), canvas.getHeight(), this.backgroundPaint);
+            // Background and markers never change between frames, so they are blitted from a pre-rendered layer.
+            Bitmap dial = this.ambientDialBuilder.getBitmap();
+            if (dial != null) {
+                canvas.drawBitmap(dial, 0, 0, null);
+            } else {
+                canvas.drawRect(0, 0, canvas.getWidth(), canvas.getHeight(), this.backgroundPaint);
+            }
         }
 
-        private void drawWatchFace(Canvas canvas) {
-            this.drawMarkers(canvas);
-
-            if (!isInAmbientMode) {
-                this.drawStatusTexts(canvas);
+        // Interactive frames only repaint the regions the hands moved through on a persistent back buffer.
+        private void composeWatchFace(Canvas canvas, ClockPose pose, FrameTimings timings) {
+            // Rim texts are baked into the interactive dial layer, which only needs rebuilding when they change.
+            long phaseStartNanos = timings.start();
+            if (this.updateStatusTexts(pose)) {
+                this.rebuildDialBuilder(this.interactiveDialBuilder);
+                this.handCompositor.setBackground(this.interactiveDialBuilder.getBitmap());
+                this.handCompositor.invalidate();
             }
-
-            this.drawHands(canvas);
-            this.drawNotificationIndicator(canvas);
+            timings.record(FrameTimings.Phase.STATUS_TEXTS, false, phaseStartNanos);
+
+            phaseStartNanos = timings.start();
+            this.handRotations[0] = pose.getHourRotation();
+            this.handRotations[1] = pose.getMinuteRotation();
+            this.handRotations[2] = pose.getSecondRotation();
+            this.handCompositor.compose(this.handRotations, canvas);
+            timings.record(FrameTimings.Phase.COMPOSITE, false, phaseStartNanos);
         }
 
-        private void drawMarkers(Canvas canvas) {
-            canvas.save();
-            for (int i = 0; i < 12; i++) {
-                canvas.rotate(360 / 12, this.centerX, this.centerY);
-                canvas.drawCircle(this.centerX, this.centerY - this.rimRadius, 3, this.foregroundPaint);
+        private void drawDebugOverlay(Canvas canvas) {
+            final LatencyHistogram histogram = this.frameTimings.getHistogram(FrameTimings.Phase.FRAME, this.isInAmbientMode);
+
+            // Built into a reused StringBuilder so that the overlay itself does not allocate every frame.
+            this.debugOverlayText.setLength(0);
+            this.debugOverlayText.append("p50 ").append(histogram.getPercentileNanos(50) / 1000).append("us");
+            this.debugOverlayText.append(" p95 ").append(histogram.getPercentileNanos(95) / 1000).append("us");
+            this.debugOverlayText.append(" max ").append(histogram.getMaxNanos() / 1000).append("us");
+
+            // Only created once the overlay is first shown, since it's off unless debugging.
+            if (this.debugOverlayPaint == null) {
+                this.debugOverlayPaint = new Paint();
+                this.debugOverlayPaint.setColor(Color.GREEN);
+                this.debugOverlayPaint.setTypeface(Typeface.MONOSPACE);
+                this.debugOverlayPaint.setTextSize(RealiestSimplestFace.DEBUG_OVERLAY_FONT_SIZE);
+                this.debugOverlayPaint.setTextAlign(Paint.Align.CENTER);
+                this.debugOverlayPaint.setAntiAlias(true);
             }
-            canvas.restore();
+            canvas.drawText(this.debugOverlayText, 0, this.debugOverlayText.length(), this.centerX, this.centerY + this.rimRadius / 2f, this.debugOverlayPaint);
         }
 
-        private void drawStatusTexts(Canvas canvas) {
-            Date now = calendar.getTime();
-            String dow = dowFormatter.format(now).toUpperCase();
-            String date = dateFormatter.format(now).toUpperCase();
+        // Returns true if the rim texts' layout changed, i.e. the day rolled over or it was explicitly invalidated.
+        private boolean updateStatusTexts(ClockPose pose) {
+            final long day = pose.getLocalDay();
+            if (day == this.statusTextDay) {
+                return false;
+            }
+            this.statusTextDay = day;
+
+            this.statusTextDate.setTime(pose.getTimeMs());
+            this.dowTextBuilder.setText(this.dowFormatter.format(this.statusTextDate).toUpperCase());
+            this.dateTextBuilder.setText(this.dateFormatter.format(this.statusTextDate).toUpperCase());
 
-            Rect textBounds = new Rect();
-            dowPaint.getTextBounds(dow, 0, 1, textBounds);
-            canvas.drawTextOnPath(dow, this.textCircle, -(this.rimCircumference * ((90f + RealiestSimplestFace.RIM_TEXT_PADDING_ANGLE) / 360f)), (textBounds.height() / 2f), this.dowPaint);
-            datePaint.getTextBounds(date, 0, 1, textBounds);
-            canvas.drawTextOnPath(date, this.textCircle, (this.rimCircumference * ((270f + RealiestSimplestFace.RIM_TEXT_PADDING_ANGLE) / 360f)), (textBounds.height() / 2f), this.datePaint);
+            final boolean dowChanged = this.dowTextBuilder.rebuild();
+            final boolean dateChanged = this.dateTextBuilder.rebuild();
+            return dowChanged || dateChanged;
         }
 
-        private void drawHands(Canvas canvas) {
-            // These calculations reflect the rotation in degrees per unit of time.
-            // For example: 360 / 60 = 6 and 360 / 12 = 30
-            final float seconds = (this.calendar.get(Calendar.SECOND) + this.calendar.get(Calendar.MILLISECOND) / 1000f);
-            final float secondsRotation = seconds * 6f;
-            final float minutesRotation = this.calendar.get(Calendar.MINUTE) * 6f;
-            final float hourHandOffset = this.calendar.get(Calendar.MINUTE) / 2f;
-            final float hoursRotation = (this.calendar.get(Calendar.HOUR) * 30) + hourHandOffset;
-
-            // Save the canvas state before we can begin to rotate it.
-            canvas.save();
+        // Ambient mode hands only move once a minute and their shadow is invisible against the black dial,
+        // so they are drawn with a plain fill (and the second hand is not drawn at all).
+        private void drawHands(Canvas canvas, ClockPose pose, float[] meshVertices) {
+            // With burn-in protection only the outlines of the hands are lit up.
+            if (this.hasBurnInProtection) {
+                this.drawHandPath(canvas, this.hourHandBuilder, pose.getHourRotation(), this.ambientOutlinePaint);
+                this.drawHandPath(canvas, this.minuteHandBuilder, pose.getMinuteRotation(), this.ambientOutlinePaint);
+                return;
+            }
 
-            // Draw hour hand.
-            canvas.rotate(hoursRotation, this.centerX, this.centerY);
-            canvas.drawPath(this.hourHandBuilder.getPath(), this.handsPaint);
+            // Triangle meshes skip path rasterization, but drawVertices() never anti-aliases, so they're only used
+            // where the display couldn't show anti-aliased edges anyway.
+            if (this.isLowBitAmbient) {
+                this.drawHandMesh(canvas, this.hourHandBuilder, pose.getHourRotation(), this.ambientHandsPaint, meshVertices);
+                this.drawHandMesh(canvas, this.minuteHandBuilder, pose.getMinuteRotation(), this.ambientHandsPaint, meshVertices);
+                return;
+            }
 
-            // Draw minute hand.
-            canvas.rotate(minutesRotation - hoursRotation, this.centerX, this.centerY);
-            canvas.drawPath(this.minuteHandBuilder.getPath(), this.handsPaint);
+            this.drawHandPath(canvas, this.hourHandBuilder, pose.getHourRotation(), this.ambientHandsPaint);
+            this.drawHandPath(canvas, this.minuteHandBuilder, pose.getMinuteRotation(), this.ambientHandsPaint);
+        }
 
-            // Only draw second hand when not in ambient mode.
-            if (!this.isInAmbientMode) {
-                canvas.rotate(secondsRotation - minutesRotation, this.centerX, this.centerY);
-                canvas.drawPath(this.secondHandBuilder.getPath(), this.secondHandPaint);
+        private void drawHandMesh(Canvas canvas, HandBuilder handBuilder, float rotation, Paint paint, float[] meshVertices) {
+            final short[] indices = handBuilder.getMeshIndices();
+            if (indices.length == 0) {
+                return;
             }
 
-            // Restore the canvas' original orientation.
+            final int vertexCount = handBuilder.getMeshVertices().length;
+            handBuilder.transformMesh(rotation, meshVertices);
+            canvas.drawVertices(Canvas.VertexMode.TRIANGLES, vertexCount, meshVertices, 0, null, 0, null, 0, indices, 0, indices.length, paint);
+        }
+
+        private void drawHandPath(Canvas canvas, HandBuilder handBuilder, float rotation, Paint paint) {
+            canvas.save();
+            canvas.rotate(rotation, this.centerX, this.centerY);
+            canvas.drawPath(handBuilder.getPath(), paint);
             canvas.restore();
         }
 
-        private void drawNotificationIndicator(Canvas canvas) {
-            if (this.unreadCount > 0) {
-                if (this.isInAmbientMode) {
+        private void drawNotificationIndicator(Canvas canvas, boolean ambient) {
+            if (this.notificationIndicator == NotificationIndicator.UNREAD) {
+                if (ambient) {
                     canvas.drawCircle(this.centerX, this.centerY, 8, this.backgroundPaint);
-                    canvas.drawCircle(this.centerX, this.centerY, 4, this.handsPaint);
+                    canvas.drawCircle(this.centerX, this.centerY, 4, this.ambientHandsPaint);
                 } else {
                     canvas.drawCircle(this.centerX, this.centerY, 6, this.handsPaint);
                     canvas.drawCircle(this.centerX, this.centerY, 3, this.secondHandPaint);
                 }
-            } else if (this.notificationCount > 0) {
-                if (this.isInAmbientMode) {
+            } else if (this.notificationIndicator == NotificationIndicator.NOTIFICATIONS) {
+                if (ambient) {
                     canvas.drawCircle(this.centerX, this.centerY, 8, this.backgroundPaint);
                 } else {
                     canvas.drawCircle(this.centerX, this.centerY, 6, this.handsPaint);
@@ -351,13 +1114,17 @@ public class RealiestSimplestFace extends CanvasWatchFaceService {
         @Override
         public void onVisibilityChanged(boolean visible) {
             super.onVisibilityChanged(visible);
+            this.recordEvent(this.clock.currentTimeMillis(), EngineTrace.Event.VISIBILITY, visible ? 1 : 0);
 
+            this.ambientPrerenderer.cancel();
             if (visible) {
                 this.registerReceiver();
+                this.handCompositor.invalidate();
 
                 // Update time zone in case it changed while we weren't visible.
-                this.calendar.setTimeZone(TimeZone.getDefault());
-                this.invalidate();
+                this.recordTimeZone(this.clock.currentTimeMillis());
+                this.updateTimeZone();
+                this.redrawScheduler.request(RedrawScheduler.Reason.VISIBILITY);
             } else {
                 this.unregisterReceiver();
             }
@@ -366,6 +1133,17 @@ public class RealiestSimplestFace extends CanvasWatchFaceService {
             this.updateTimer();
         }
 
+        private void updateTimeZone() {
+            this.ambientPrerenderer.cancel();
+            this.clockPose.setZone(ZoneId.systemDefault());
+            this.ambientPrerenderClockPose.setZone(ZoneId.systemDefault());
+            this.dowFormatter.setTimeZone(TimeZone.getDefault());
+            this.dateFormatter.setTimeZone(TimeZone.getDefault());
+
+            // Force rim texts to be re-laid out for the (possibly) new local date.
+            this.statusTextDay = Long.MIN_VALUE;
+        }
+
         private void registerReceiver() {
             if (this.hasRegisteredTimeZoneReceiver) {
                 return;
@@ -374,6 +1152,14 @@ public class RealiestSimplestFace extends CanvasWatchFaceService {
             this.hasRegisteredTimeZoneReceiver = true;
             IntentFilter filter = new IntentFilter(Intent.ACTION_TIMEZONE_CHANGED);
             RealiestSimplestFace.this.registerReceiver(this.timeZoneReceiver, filter);
+
+            // Battery state only matters to the sweep frame rate.
+            if (this.frameRateGovernor != null) {
+                this.hasRegisteredBatteryReceiver = true;
+                IntentFilter batteryFilter = new IntentFilter(Intent.ACTION_BATTERY_LOW);
+                batteryFilter.addAction(Intent.ACTION_BATTERY_OKAY);
+                RealiestSimplestFace.this.registerReceiver(this.batteryReceiver, batteryFilter);
+            }
         }
 
         private void unregisterReceiver() {
@@ -383,31 +1169,239 @@ public class RealiestSimplestFace extends CanvasWatchFaceService {
 
             this.hasRegisteredTimeZoneReceiver = false;
             RealiestSimplestFace.this.unregisterReceiver(this.timeZoneReceiver);
+
+            if (this.hasRegisteredBatteryReceiver) {
+                this.hasRegisteredBatteryReceiver = false;
+                RealiestSimplestFace.this.unregisterReceiver(this.batteryReceiver);
+            }
         }
 
-        // Starts/stops the updateTimeHandler timer based on the state of the watch face.
+        // Starts/stops the updateTimeHandler timer (or the sweep frame callbacks) based on the state of the watch face.
         private void updateTimer() {
             this.updateTimeHandler.removeMessages(RealiestSimplestFace.MSG_UPDATE_TIME);
+            if (this.choreographer != null) {
+                this.choreographer.removeFrameCallback(this.sweepFrameCallback);
+            }
+
             if (shouldTimerBeRunning()) {
-                this.updateTimeHandler.sendEmptyMessage(RealiestSimplestFace.MSG_UPDATE_TIME);
+                if (this.isSweeping()) {
+                    this.scheduleSweepFrame();
+                } else {
+                    this.updateTimeHandler.sendEmptyMessage(RealiestSimplestFace.MSG_UPDATE_TIME);
+                }
             }
         }
 
+        // Schedules the next sweep frame on the first vsync at or after one frame interval from now.
+        private void scheduleSweepFrame() {
+            final long delayMs = Math.max(0, this.frameRateGovernor.getFrameIntervalMs() - this.vsyncPeriodMs);
+            this.choreographer.postFrameCallbackDelayed(this.sweepFrameCallback, delayMs);
+        }
+
+        private boolean isSweeping() {
+            return this.frameRateGovernor != null && this.frameRateGovernor.isSweeping();
+        }
+
         // Returns whether the updateTimeHandler timer should be running.
         // The timer should only run in active mode.
         private boolean shouldTimerBeRunning() {
             return this.isVisible() && !this.isInAmbientMode;
         }
 
+        // Counts a timer tick, flagging it if the timer should have been stopped.
+        private void recordWakeup() {
+            final long timeMs = this.clock.currentTimeMillis();
+            RealiestSimplestFace.WAKEUP_ACCOUNTING.record(timeMs, WakeupAccounting.Counter.WAKEUPS, this.isInAmbientMode, this.isVisible(), 1);
+            if (!this.shouldTimerBeRunning()) {
+                RealiestSimplestFace.WAKEUP_ACCOUNTING.recordAnomaly(timeMs, WakeupAccounting.Anomaly.TIMER_NOT_STOPPED);
+            }
+        }
+
+        private long getExpectedDrawIntervalMs() {
+            if (this.isInAmbientMode) {
+                return RealiestSimplestFace.AMBIENT_UPDATE_RATE_MS;
+            }
+            return this.isSweeping() ? this.frameRateGovernor.getFrameIntervalMs() : RealiestSimplestFace.INTERACTIVE_UPDATE_RATE_MS;
+        }
+
+        // Whether the message is a tick of this engine's interactive timer.
+        boolean isTimerTick(Message message) {
+            return message.getTarget() == this.updateTimeHandler && message.what == RealiestSimplestFace.MSG_UPDATE_TIME;
+        }
+
         // Handle updating the time periodically in interactive mode.
         private void handleUpdateTimeMessage() {
-            this.invalidate();
+            this.recordWakeup();
+            this.redrawScheduler.tick();
             if (this.shouldTimerBeRunning()) {
-                long timeMs = System.currentTimeMillis();
-                long delayMs = RealiestSimplestFace.INTERACTIVE_UPDATE_RATE_MS - (timeMs % RealiestSimplestFace.INTERACTIVE_UPDATE_RATE_MS);
+                long timeMs = this.clock.currentTimeMillis();
+                long delayMs = TickSchedule.getDelayMs(timeMs, RealiestSimplestFace.INTERACTIVE_UPDATE_RATE_MS);
                 this.updateTimeHandler.sendEmptyMessageDelayed(RealiestSimplestFace.MSG_UPDATE_TIME, delayMs);
             }
         }
+
+        // Starts tracing from the engine's current state, so that a replay of the trace starts out the same.
+        private void startTrace() {
+            this.trace = new EngineTrace(RealiestSimplestFace.TRACE_CAPACITY);
+            this.tracedZoneId = null;
+            final long timeMs = this.clock.currentTimeMillis();
+            this.recordEvent(timeMs, EngineTrace.Event.NOTIFICATION_COUNT, this.notificationCount);
+            this.recordEvent(timeMs, EngineTrace.Event.UNREAD_COUNT, this.unreadCount);
+            this.recordEvent(timeMs, EngineTrace.Event.VISIBILITY, this.isVisible() ? 1 : 0);
+            this.recordEvent(timeMs, EngineTrace.Event.AMBIENT_MODE, this.isInAmbientMode ? 1 : 0);
+            this.recordTimeZone(timeMs);
+        }
+
+        private void recordEvent(long timeMs, EngineTrace.Event event, int value) {
+            if (this.trace != null) {
+                this.trace.record(timeMs, event, value);
+            }
+        }
+
+        private void recordTimeZone(long timeMs) {
+            final String zoneId = ZoneId.systemDefault().getId();
+            if (this.trace != null && !zoneId.equals(this.tracedZoneId)) {
+                this.tracedZoneId = zoneId;
+                this.trace.recordTimeZone(timeMs, zoneId);
+            }
+        }
+
+        // Supported dump arguments: "timing on|off|reset", "overlay on|off", "quality auto|high|medium|low"
+        // and "trace on|off|<name>".
+        private void dump(PrintWriter writer, String[] args) {
+            if (args != null && args.length >= 2 && !this.handleDumpCommand(args[0], args[1])) {
+                writer.printf("Command %s %s still pending: engine thread busy%n", args[0], args[1]);
+            }
+
+            writer.printf("Engine %s (%s, %s):%n", Integer.toHexString(System.identityHashCode(this)), this.isVisible() ? "visible" : "invisible", this.isInAmbientMode ? "ambient" : "interactive");
+
+            writer.println("  Startup:");
+            this.startupTimings.dump(writer, "    ");
+
+            if (this.frameRateGovernor != null) {
+                writer.println("  Sweep:");
+                this.frameRateGovernor.dump(writer, "    ");
+            } else {
+                writer.println("  Sweep: disabled");
+            }
+
+            writer.println("  Compositor:");
+            writer.printf("    frames: %d, full redraws: %d%n", this.handCompositor.getFrameCount(), this.handCompositor.getFullFrameCount());
+            writer.printf("    pixels touched: %d total, %d last frame%n", this.handCompositor.getPixelsTouched(), this.handCompositor.getLastFramePixelsTouched());
+
+            writer.println("  Render quality:");
+            this.renderQualitySelector.dump(writer, "    ");
+
+            writer.println("  Complications:");
+            for (ComplicationSlot slot : this.complicationSlots) {
+                writer.printf("    %d: type %d, updates: %d, renders: %d%n", slot.getId(), slot.getData() != null ? slot.getData().getType() : ComplicationData.TYPE_EMPTY, slot.getUpdateCount(), slot.getRenderCount());
+            }
+
+            writer.println("  Redraws:");
+            this.redrawScheduler.dump(writer, "    ");
+
+            writer.println("  Ambient prerender:");
+            this.ambientPrerenderer.dump(writer, "    ");
+
+            writer.println("  Timings:");
+            this.frameTimings.dump(writer, "    ");
+
+            final EngineTrace trace = this.trace;
+            writer.printf("  Trace: %s%s%n", trace != null ? trace.getRecordCount() + " events recorded" : "off", this.traceResult != null ? ", " + this.traceResult : "");
+        }
+
+        // Returns where dump commands write their output, e.g. traces/<name>; null if the name isn't usable.
+        private File getDumpOutputFile(String kind, String name) {
+            if (name.isEmpty() || name.contains(File.separator) || name.startsWith(".")) {
+                return null;
+            }
+
+            final File baseDir = RealiestSimplestFace.this.getExternalFilesDir(null);
+            return new File(new File(baseDir != null ? baseDir : RealiestSimplestFace.this.getFilesDir(), kind), name);
+        }
+
+        // Writes the recorded engine events to traces/<name>.trace, for replaying with the app's ReplayTest.
+        private String writeTrace(String name) {
+            if (this.trace == null) {
+                return "tracing is off";
+            }
+            final File file = this.getDumpOutputFile("traces", name + ".trace");
+            if (file == null) {
+                return "invalid name: " + name;
+            }
+            if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+                return "cannot create " + file.getParentFile();
+            }
+
+            try (PrintWriter writer = new PrintWriter(file)) {
+                this.trace.write(writer);
+            } catch (IOException e) {
+                return "failed writing " + file + ": " + e.getMessage();
+            }
+
+            return "wrote " + this.trace.getSize() + " events to " + file;
+        }
+
+        // Returns whether the command ran in time for the dump to show its effect.
+        private boolean handleDumpCommand(final String command, final String value) {
+            final Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    if ("timing".equals(command)) {
+                        if ("reset".equals(value)) {
+                            frameTimings.reset();
+                        } else {
+                            frameTimings.setEnabled("on".equals(value));
+                        }
+                    } else if ("overlay".equals(command)) {
+                        isDebugOverlayEnabled = "on".equals(value);
+                        if (isDebugOverlayEnabled) {
+                            frameTimings.setEnabled(true);
+                        }
+                        redrawScheduler.request(RedrawScheduler.Reason.DEBUG);
+                    } else if ("quality".equals(command)) {
+                        setOverrideQuality(RenderQuality.parse(value));
+                    } else if ("trace".equals(command)) {
+                        if ("on".equals(value)) {
+                            if (trace == null) {
+                                startTrace();
+                            }
+                            traceResult = null;
+                        } else if ("off".equals(value)) {
+                            trace = null;
+                            traceResult = null;
+                        } else {
+                            traceResult = writeTrace(value);
+                        }
+                    }
+                }
+            };
+
+            if (Looper.myLooper() == this.updateTimeHandler.getLooper()) {
+                task.run();
+                return true;
+            }
+
+            // Dumps run on a binder thread, so state changes are handed over to the engine's thread, and the dump
+            // waits for them (but not for long, should that thread be stuck).
+            final CountDownLatch done = new CountDownLatch(1);
+            this.updateTimeHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+            try {
+                return done.await(RealiestSimplestFace.DUMP_COMMAND_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
     }
 
     private static class EngineHandler extends Handler {
@@ -0,0 +1,41 @@
+package com.billyhe.realiestsimplest;
+
+import java.util.Locale;
+
+import lombok.Getter;
+
+// Bundles of paint and layer settings for the interactive face, from the most to the least expensive.
+public enum RenderQuality {
+    HIGH(true, true, true, true),
+    MEDIUM(true, false, true, true),
+    LOW(false, false, false, false);
+
+    @Getter private final boolean antiAlias;
+    @Getter private final boolean handShadows;
+    @Getter private final boolean roundedHandCorners;
+    @Getter private final boolean filterHandSprites;
+
+    RenderQuality(boolean antiAlias, boolean handShadows, boolean roundedHandCorners, boolean filterHandSprites) {
+        this.antiAlias = antiAlias;
+        this.handShadows = handShadows;
+        this.roundedHandCorners = roundedHandCorners;
+        this.filterHandSprites = filterHandSprites;
+    }
+
+    public RenderQuality lower() {
+        return this.ordinal() + 1 < RenderQuality.values().length ? RenderQuality.values()[this.ordinal() + 1] : this;
+    }
+
+    // Parses a quality name case-insensitively; returns null for "auto" or anything else that isn't a quality.
+    public static RenderQuality parse(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        try {
+            return RenderQuality.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
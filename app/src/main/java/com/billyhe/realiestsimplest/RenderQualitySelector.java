@@ -0,0 +1,192 @@
+package com.billyhe.realiestsimplest;
+
+import android.content.SharedPreferences;
+
+import java.io.PrintWriter;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Getter;
+
+// Picks the render quality for a surface size: an override or a pin if there is one, otherwise the quality stored
+// for that size, otherwise the highest quality whose calibration frames fit the budget. The choice is then lowered
+// whenever the frame time p95 over a window of frames drifts over budget. Calibration and drift measure the same
+// thing: composing a frame after the previous one, as the engine does every tick. Stored choices expire, so that a
+// quality lowered by a passing slowdown gets another chance. Reading the stored quality and calibrating are left
+// until after the first frame, which is drawn at getInitialQuality().
+public class RenderQualitySelector {
+    public enum Source {
+        INITIAL,
+        OVERRIDE,
+        PINNED,
+        STORED,
+        CALIBRATED,
+        DRIFTED,
+    }
+
+    public interface Calibration {
+        // Returns the typical cost of composing a frame at the given quality, following on from the previous one.
+        long measureFrameNanos(RenderQuality quality);
+    }
+
+    // Half a display refresh, leaving the rest of the frame to the system.
+    private static final long FRAME_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(8);
+
+    private static final int DRIFT_WINDOW_FRAMES = 300;
+
+    // How long a stored (calibrated or drifted) quality is used before calibrating again.
+    private static final long STORED_QUALITY_LIFETIME_MS = TimeUnit.DAYS.toMillis(7);
+
+    // Suffix of the preference holding when the quality for a size was stored.
+    private static final String STORED_TIME_SUFFIX = ".time";
+
+    private final SharedPreferences preferences;
+    @Getter private final RenderQuality pinnedQuality;
+    @Getter private RenderQuality overrideQuality;
+
+    @Getter private RenderQuality quality = RenderQuality.HIGH;
+    @Getter private Source source = Source.INITIAL;
+    private String sizeKey;
+    // When the current quality was stored, or 0 if it isn't a stored one.
+    private long storedTimeMs = 0;
+
+    // Last quality selected in this process, and for which size. Engines are recreated every time the face is
+    // switched to, and usually select the same quality again.
+    private static RenderQuality lastSelectedQuality;
+    private static String lastSelectedSizeKey;
+
+    private final long[] calibrationNanos = new long[RenderQuality.values().length];
+    private final LatencyHistogram driftWindow = new LatencyHistogram();
+    @Getter private long driftCount = 0;
+
+    // The pinned quality, if not null, takes precedence over stored and calibrated qualities.
+    public RenderQualitySelector(SharedPreferences preferences, RenderQuality pinnedQuality) {
+        this.preferences = preferences;
+        this.pinnedQuality = pinnedQuality;
+    }
+
+    // Takes effect on the next call to select(); null goes back to automatic selection.
+    public void setOverrideQuality(RenderQuality overrideQuality) {
+        this.overrideQuality = overrideQuality;
+    }
+
+    // The quality to draw with until select() has run, without touching the preferences: an override or pin if there
+    // is one, otherwise the quality last selected in this process for the size, otherwise the highest.
+    public RenderQuality getInitialQuality(int width, int height) {
+        if (this.overrideQuality != null) {
+            return this.overrideQuality;
+        } else if (this.pinnedQuality != null) {
+            return this.pinnedQuality;
+        } else if (RenderQualitySelector.lastSelectedQuality != null && (width + "x" + height).equals(RenderQualitySelector.lastSelectedSizeKey)) {
+            return RenderQualitySelector.lastSelectedQuality;
+        }
+        return RenderQuality.HIGH;
+    }
+
+    public RenderQuality select(int width, int height, Calibration calibration, long timeMs) {
+        this.sizeKey = width + "x" + height;
+        this.driftWindow.reset();
+        this.storedTimeMs = 0;
+
+        if (this.overrideQuality != null) {
+            this.setQuality(this.overrideQuality, Source.OVERRIDE);
+            return this.quality;
+        }
+
+        if (this.pinnedQuality != null) {
+            this.setQuality(this.pinnedQuality, Source.PINNED);
+            return this.quality;
+        }
+
+        final RenderQuality storedQuality = RenderQuality.parse(this.preferences.getString(this.sizeKey, null));
+        final long storedTimeMs = this.preferences.getLong(this.sizeKey + RenderQualitySelector.STORED_TIME_SUFFIX, 0);
+        if (storedQuality != null && storedTimeMs > 0 && !RenderQualitySelector.isExpired(storedTimeMs, timeMs)) {
+            this.setQuality(storedQuality, Source.STORED);
+            this.storedTimeMs = storedTimeMs;
+            return this.quality;
+        }
+
+        RenderQuality calibratedQuality = RenderQuality.LOW;
+        for (int i = 0; i < this.calibrationNanos.length; i++) {
+            this.calibrationNanos[i] = 0;
+        }
+        for (RenderQuality quality : RenderQuality.values()) {
+            this.calibrationNanos[quality.ordinal()] = calibration.measureFrameNanos(quality);
+            if (this.calibrationNanos[quality.ordinal()] <= RenderQualitySelector.FRAME_BUDGET_NANOS) {
+                calibratedQuality = quality;
+                break;
+            }
+        }
+
+        this.setQuality(calibratedQuality, Source.CALIBRATED);
+        this.store(timeMs);
+        return this.quality;
+    }
+
+    // Records how long composing a frame took. Returns true if select() needs to be called again: either the
+    // quality was lowered (and stored), or the stored quality expired and should be calibrated again.
+    public boolean recordFrame(long durationNanos, long timeMs) {
+        if (this.source == Source.INITIAL || this.source == Source.OVERRIDE || this.source == Source.PINNED) {
+            return false;
+        }
+
+        if (RenderQualitySelector.isExpired(this.storedTimeMs, timeMs)) {
+            return true;
+        }
+
+        if (this.quality == RenderQuality.LOW) {
+            return false;
+        }
+
+        this.driftWindow.record(durationNanos);
+        if (this.driftWindow.getCount() < RenderQualitySelector.DRIFT_WINDOW_FRAMES) {
+            return false;
+        }
+
+        final long p95Nanos = this.driftWindow.getPercentileNanos(95);
+        this.driftWindow.reset();
+        if (p95Nanos <= RenderQualitySelector.FRAME_BUDGET_NANOS) {
+            return false;
+        }
+
+        this.driftCount++;
+        this.setQuality(this.quality.lower(), Source.DRIFTED);
+        this.store(timeMs);
+        return true;
+    }
+
+    public void dump(PrintWriter writer, String prefix) {
+        writer.printf("%squality: %s (%s) for %s%n", prefix, this.quality, this.source, this.sizeKey);
+        writer.printf("%spinned: %s, override: %s, drifts: %d%n", prefix, this.pinnedQuality, this.overrideQuality, this.driftCount);
+        if (this.storedTimeMs > 0) {
+            writer.printf("%sstored: %s, expires: %s%n", prefix, Instant.ofEpochMilli(this.storedTimeMs), Instant.ofEpochMilli(this.storedTimeMs + RenderQualitySelector.STORED_QUALITY_LIFETIME_MS));
+        }
+        for (RenderQuality quality : RenderQuality.values()) {
+            if (this.calibrationNanos[quality.ordinal()] > 0) {
+                writer.printf("%scalibration %s: %.3fms (budget %.3fms)%n", prefix, quality, this.calibrationNanos[quality.ordinal()] / 1e6, RenderQualitySelector.FRAME_BUDGET_NANOS / 1e6);
+            }
+        }
+    }
+
+    private void setQuality(RenderQuality quality, Source source) {
+        this.quality = quality;
+        this.source = source;
+        if (source != Source.OVERRIDE && source != Source.PINNED) {
+            RenderQualitySelector.lastSelectedQuality = quality;
+            RenderQualitySelector.lastSelectedSizeKey = this.sizeKey;
+        }
+    }
+
+    private void store(long timeMs) {
+        this.storedTimeMs = timeMs;
+        this.preferences.edit()
+                .putString(this.sizeKey, this.quality.name())
+                .putLong(this.sizeKey + RenderQualitySelector.STORED_TIME_SUFFIX, timeMs)
+                .apply();
+    }
+
+    // Qualities stored "in the future" (e.g. before the clock was set back) are expired too.
+    private static boolean isExpired(long storedTimeMs, long timeMs) {
+        return storedTimeMs > 0 && (timeMs < storedTimeMs || timeMs - storedTimeMs >= RenderQualitySelector.STORED_QUALITY_LIFETIME_MS);
+    }
+}
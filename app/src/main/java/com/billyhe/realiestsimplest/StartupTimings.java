@@ -0,0 +1,50 @@
+package com.billyhe.realiestsimplest;
+
+import android.os.SystemClock;
+
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+// How long it takes an engine to draw its first frame, from its service being created (which binding to it starts
+// with), i.e. how long switching to the face takes. For cold starts, the time since the process started is reported
+// too. Each milestone is only recorded the first time it's reached.
+public class StartupTimings {
+    public enum Milestone {
+        SERVICE_CREATED,
+        ENGINE_CREATED,
+        ENGINE_INITIALIZED,
+        SURFACE_CHANGED,
+        FIRST_DRAW,
+    }
+
+    private final long processStartNanos;
+    // Elapsed realtime of each milestone, or 0 while it hasn't been reached.
+    private final long[] milestoneNanos = new long[Milestone.values().length];
+
+    public StartupTimings(long processStartMs, long serviceCreatedNanos) {
+        this.processStartNanos = TimeUnit.MILLISECONDS.toNanos(processStartMs);
+        this.milestoneNanos[Milestone.SERVICE_CREATED.ordinal()] = serviceCreatedNanos;
+    }
+
+    public void mark(Milestone milestone) {
+        if (this.milestoneNanos[milestone.ordinal()] == 0) {
+            this.milestoneNanos[milestone.ordinal()] = SystemClock.elapsedRealtimeNanos();
+        }
+    }
+
+    public void dump(PrintWriter writer, String prefix) {
+        final long serviceCreatedNanos = this.milestoneNanos[Milestone.SERVICE_CREATED.ordinal()];
+        writer.printf("%sprocess start to service created: %.1fms%n", prefix, (serviceCreatedNanos - this.processStartNanos) / 1e6);
+
+        long previousNanos = serviceCreatedNanos;
+        for (Milestone milestone : Milestone.values()) {
+            final long nanos = this.milestoneNanos[milestone.ordinal()];
+            if (milestone == Milestone.SERVICE_CREATED || nanos == 0) {
+                continue;
+            }
+
+            writer.printf("%s%s: +%.1fms (%.1fms since service created)%n", prefix, milestone, (nanos - previousNanos) / 1e6, (nanos - serviceCreatedNanos) / 1e6);
+            previousNanos = nanos;
+        }
+    }
+}
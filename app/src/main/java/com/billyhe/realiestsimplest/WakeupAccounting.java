@@ -0,0 +1,168 @@
+package com.billyhe.realiestsimplest;
+
+import java.io.PrintWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+// Counts what the face costs in battery (how often it wakes up and how long it draws), per hour of wall-clock time
+// and per ambient/interactive and visible/invisible state, over a fixed-size ring of the most recent hours. Hours
+// start on the hour in UTC, so that changing zones doesn't split or merge them; dumps label each with the local time
+// it starts at, which is off the hour in zones like India's.
+// Also keeps track of anomalies: ticks while the timer shouldn't be running, and redraws faster than expected.
+// Methods are synchronized since dumps read from a binder thread.
+public class WakeupAccounting {
+    public enum Counter {
+        WAKEUPS,
+        TIME_TICKS,
+        DRAWS,
+        DRAW_CPU_NANOS,
+    }
+
+    public enum Anomaly {
+        TIMER_NOT_STOPPED,
+        DRAW_RATE_EXCEEDED,
+    }
+
+    private static final long HOUR_MS = TimeUnit.HOURS.toMillis(1);
+    private static final int BUCKET_COUNT = 24;
+    private static final int STATE_COUNT = 4;
+    private static final int COUNTER_COUNT = Counter.values().length;
+
+    // Draws are checked against the expected rate over windows of this length, allowing for a few extra redraws
+    // (e.g. for state changes) per window.
+    private static final long DRAW_RATE_WINDOW_MS = TimeUnit.SECONDS.toMillis(10);
+    private static final int DRAW_RATE_SLACK = 5;
+
+    private static final int ANOMALY_HISTORY_SIZE = 16;
+
+    private static final DateTimeFormatter HOUR_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    // Hour (since the epoch) held by each bucket, or -1 when a bucket is unused.
+    private final long[] bucketHours = new long[WakeupAccounting.BUCKET_COUNT];
+    private final long[] counts = new long[WakeupAccounting.BUCKET_COUNT * WakeupAccounting.STATE_COUNT * WakeupAccounting.COUNTER_COUNT];
+
+    private long drawRateWindowStartMs = Long.MIN_VALUE;
+    private int drawRateWindowDraws = 0;
+
+    private final long[] anomalyCounts = new long[Anomaly.values().length];
+    private final long[] anomalyTimes = new long[WakeupAccounting.ANOMALY_HISTORY_SIZE];
+    private final Anomaly[] anomalyTypes = new Anomaly[WakeupAccounting.ANOMALY_HISTORY_SIZE];
+    private int anomalyHistoryCount = 0;
+
+    public WakeupAccounting() {
+        for (int i = 0; i < WakeupAccounting.BUCKET_COUNT; i++) {
+            this.bucketHours[i] = -1;
+        }
+    }
+
+    public synchronized void record(long timeMs, Counter counter, boolean ambient, boolean visible, long amount) {
+        final int index = this.getBucketIndex(timeMs) * WakeupAccounting.STATE_COUNT * WakeupAccounting.COUNTER_COUNT
+                + WakeupAccounting.getStateIndex(ambient, visible) * WakeupAccounting.COUNTER_COUNT
+                + counter.ordinal();
+        this.counts[index] += amount;
+    }
+
+    // Records a draw, and flags an anomaly when draws come in faster than once per the expected interval.
+    public synchronized void recordDraw(long timeMs, boolean ambient, boolean visible, long cpuNanos, long expectedIntervalMs) {
+        this.record(timeMs, Counter.DRAWS, ambient, visible, 1);
+        this.record(timeMs, Counter.DRAW_CPU_NANOS, ambient, visible, cpuNanos);
+
+        if (timeMs < this.drawRateWindowStartMs || timeMs - this.drawRateWindowStartMs >= WakeupAccounting.DRAW_RATE_WINDOW_MS) {
+            this.drawRateWindowStartMs = timeMs;
+            this.drawRateWindowDraws = 0;
+        }
+        this.drawRateWindowDraws++;
+
+        // Flagged once per window, when the window's draws first exceed the limit.
+        final long maxDraws = WakeupAccounting.DRAW_RATE_WINDOW_MS / Math.max(1, expectedIntervalMs) + WakeupAccounting.DRAW_RATE_SLACK;
+        if (this.drawRateWindowDraws == maxDraws + 1) {
+            this.recordAnomaly(timeMs, Anomaly.DRAW_RATE_EXCEEDED);
+        }
+    }
+
+    public synchronized void recordAnomaly(long timeMs, Anomaly anomaly) {
+        final int index = this.anomalyHistoryCount % WakeupAccounting.ANOMALY_HISTORY_SIZE;
+        this.anomalyTimes[index] = timeMs;
+        this.anomalyTypes[index] = anomaly;
+        this.anomalyHistoryCount++;
+        this.anomalyCounts[anomaly.ordinal()]++;
+    }
+
+    public synchronized long getAnomalyCount(Anomaly anomaly) {
+        return this.anomalyCounts[anomaly.ordinal()];
+    }
+
+    public synchronized void dump(PrintWriter writer, String prefix) {
+        // Most recent hour first.
+        final int[] order = new int[WakeupAccounting.BUCKET_COUNT];
+        int bucketCount = 0;
+        for (int i = 0; i < WakeupAccounting.BUCKET_COUNT; i++) {
+            if (this.bucketHours[i] >= 0) {
+                order[bucketCount++] = i;
+            }
+        }
+        for (int i = 1; i < bucketCount; i++) {
+            for (int j = i; j > 0 && this.bucketHours[order[j]] > this.bucketHours[order[j - 1]]; j--) {
+                final int swap = order[j];
+                order[j] = order[j - 1];
+                order[j - 1] = swap;
+            }
+        }
+
+        for (int i = 0; i < bucketCount; i++) {
+            final int bucket = order[i];
+            final String hour = WakeupAccounting.HOUR_FORMATTER.format(Instant.ofEpochMilli(this.bucketHours[bucket] * WakeupAccounting.HOUR_MS).atZone(ZoneId.systemDefault()));
+            writer.printf("%s%s:%n", prefix, hour);
+
+            for (int state = 0; state < WakeupAccounting.STATE_COUNT; state++) {
+                final int offset = (bucket * WakeupAccounting.STATE_COUNT + state) * WakeupAccounting.COUNTER_COUNT;
+                boolean empty = true;
+                for (int counter = 0; counter < WakeupAccounting.COUNTER_COUNT; counter++) {
+                    empty &= this.counts[offset + counter] == 0;
+                }
+                if (empty) {
+                    continue;
+                }
+
+                writer.printf("%s  %s/%s: wakeups=%d ticks=%d draws=%d cpu=%.1fms%n", prefix,
+                        (state & 2) != 0 ? "ambient" : "interactive",
+                        (state & 1) != 0 ? "visible" : "invisible",
+                        this.counts[offset + Counter.WAKEUPS.ordinal()],
+                        this.counts[offset + Counter.TIME_TICKS.ordinal()],
+                        this.counts[offset + Counter.DRAWS.ordinal()],
+                        this.counts[offset + Counter.DRAW_CPU_NANOS.ordinal()] / 1e6);
+            }
+        }
+
+        for (Anomaly anomaly : Anomaly.values()) {
+            writer.printf("%sanomalies (%s): %d%n", prefix, anomaly, this.anomalyCounts[anomaly.ordinal()]);
+        }
+
+        final int historyCount = Math.min(this.anomalyHistoryCount, WakeupAccounting.ANOMALY_HISTORY_SIZE);
+        for (int i = this.anomalyHistoryCount - historyCount; i < this.anomalyHistoryCount; i++) {
+            final int index = i % WakeupAccounting.ANOMALY_HISTORY_SIZE;
+            writer.printf("%s  @%s: %s%n", prefix, Instant.ofEpochMilli(this.anomalyTimes[index]), this.anomalyTypes[index]);
+        }
+    }
+
+    // Returns the bucket for the hour of the given time, recycling the bucket of the oldest hour if needed.
+    private int getBucketIndex(long timeMs) {
+        final long hour = Math.floorDiv(timeMs, WakeupAccounting.HOUR_MS);
+        final int index = (int) Math.floorMod(hour, (long) WakeupAccounting.BUCKET_COUNT);
+
+        if (this.bucketHours[index] != hour) {
+            this.bucketHours[index] = hour;
+            final int offset = index * WakeupAccounting.STATE_COUNT * WakeupAccounting.COUNTER_COUNT;
+            for (int i = 0; i < WakeupAccounting.STATE_COUNT * WakeupAccounting.COUNTER_COUNT; i++) {
+                this.counts[offset + i] = 0;
+            }
+        }
+        return index;
+    }
+
+    private static int getStateIndex(boolean ambient, boolean visible) {
+        return (ambient ? 2 : 0) | (visible ? 1 : 0);
+    }
+}
@@ -0,0 +1,70 @@
+package com.billyhe.realiestsimplest;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import lombok.Getter;
+
+// Per-channel (ARGB) differences between two bitmaps of the same size.
+public class BitmapDiff {
+    @Getter private final int width;
+    @Getter private final int height;
+    @Getter private int maxChannelDiff = 0;
+    @Getter private long totalChannelDiff = 0;
+    @Getter private int differingPixelCount = 0;
+    // Where the largest difference was found.
+    private int maxDiffX = -1;
+    private int maxDiffY = -1;
+
+    public BitmapDiff(Bitmap expected, Bitmap actual) {
+        if (expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight()) {
+            throw new IllegalArgumentException("sizes differ: " + expected.getWidth() + "x" + expected.getHeight() + " vs " + actual.getWidth() + "x" + actual.getHeight());
+        }
+
+        this.width = expected.getWidth();
+        this.height = expected.getHeight();
+        final int[] expectedPixels = new int[this.width * this.height];
+        final int[] actualPixels = new int[this.width * this.height];
+        expected.getPixels(expectedPixels, 0, this.width, 0, 0, this.width, this.height);
+        actual.getPixels(actualPixels, 0, this.width, 0, 0, this.width, this.height);
+
+        for (int i = 0; i < expectedPixels.length; i++) {
+            final int a = expectedPixels[i];
+            final int b = actualPixels[i];
+            if (a == b) {
+                continue;
+            }
+
+            final int diff = Math.max(
+                    Math.max(Math.abs(Color.alpha(a) - Color.alpha(b)), Math.abs(Color.red(a) - Color.red(b))),
+                    Math.max(Math.abs(Color.green(a) - Color.green(b)), Math.abs(Color.blue(a) - Color.blue(b))));
+            this.totalChannelDiff += Math.abs(Color.alpha(a) - Color.alpha(b)) + Math.abs(Color.red(a) - Color.red(b))
+                    + Math.abs(Color.green(a) - Color.green(b)) + Math.abs(Color.blue(a) - Color.blue(b));
+            this.differingPixelCount++;
+
+            if (diff > this.maxChannelDiff) {
+                this.maxChannelDiff = diff;
+                this.maxDiffX = i % this.width;
+                this.maxDiffY = i / this.width;
+            }
+        }
+    }
+
+    // Sum of all channels of a bitmap, e.g. to relate the total difference to how much is drawn at all.
+    public static long sumChannels(Bitmap bitmap) {
+        final int[] pixels = new int[bitmap.getWidth() * bitmap.getHeight()];
+        bitmap.getPixels(pixels, 0, bitmap.getWidth(), 0, 0, bitmap.getWidth(), bitmap.getHeight());
+
+        long sum = 0;
+        for (int pixel : pixels) {
+            sum += Color.alpha(pixel) + Color.red(pixel) + Color.green(pixel) + Color.blue(pixel);
+        }
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d of %d pixels differ, max channel diff %d at (%d, %d), total %d",
+                this.differingPixelCount, this.width * this.height, this.maxChannelDiff, this.maxDiffX, this.maxDiffY, this.totalChannelDiff);
+    }
+}
@@ -0,0 +1,118 @@
+package com.billyhe.realiestsimplest;
+
+import android.support.wearable.complications.ComplicationData;
+import android.support.wearable.complications.ComplicationText;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.GraphicsMode;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Nothing on the draw path may allocate once it has warmed up, since collecting the garbage would cost more than
+// drawing does. Frames are driven by the engine's own timers and time ticks, on a simulated clock.
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class DrawAllocationTest {
+    private static final int WIDTH = 416;
+    private static final int HEIGHT = 416;
+
+    // Interactive frames come once a second, ambient ones once a minute. Ambient frames post the next minute's
+    // prerender, and Robolectric's emulation of the message queue allocates a few bytes now and then over its first
+    // half hour of doing so, which the warm-up has to outlast.
+    private static final int WARM_UP_SECONDS = 120;
+    private static final int MEASURED_SECONDS = 600;
+    private static final int WARM_UP_MINUTES = 60;
+    private static final int MEASURED_MINUTES = 120;
+
+    // Early enough in the day that no frame crosses midnight, which re-formats the rim texts.
+    private static final ZoneId ZONE = ZoneId.of("America/Los_Angeles");
+    private static final ZonedDateTime START = ZonedDateTime.of(2021, 7, 4, 8, 0, 0, 0, DrawAllocationTest.ZONE);
+
+    private TimeZone defaultTimeZone;
+    private TestFace.TestEngine engine;
+
+    @Before
+    public void setUp() {
+        this.defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone(DrawAllocationTest.ZONE));
+
+        final TestFace face = TestFace.create(new SimulatedClock(DrawAllocationTest.START.toInstant().toEpochMilli()));
+        this.engine = face.startEngine(DrawAllocationTest.WIDTH, DrawAllocationTest.HEIGHT);
+
+        // A ranged value, and a countdown that reads the same throughout but might change at any minute, so that
+        // frames check whether it did.
+        this.engine.onComplicationDataUpdate(RealiestSimplestFace.LEFT_COMPLICATION_ID, new ComplicationData.Builder(ComplicationData.TYPE_RANGED_VALUE)
+                .setValue(7200)
+                .setMinValue(0)
+                .setMaxValue(10000)
+                .setShortText(ComplicationText.plainText("7.2k"))
+                .build());
+        final long countdownEndMs = DrawAllocationTest.START.plusDays(30).toInstant().toEpochMilli();
+        this.engine.onComplicationDataUpdate(RealiestSimplestFace.RIGHT_COMPLICATION_ID, new ComplicationData.Builder(ComplicationData.TYPE_SHORT_TEXT)
+                .setShortText(new ComplicationText.TimeDifferenceBuilder()
+                        .setReferencePeriodStart(countdownEndMs)
+                        .setReferencePeriodEnd(countdownEndMs)
+                        .setStyle(ComplicationText.DIFFERENCE_STYLE_SHORT_SINGLE_UNIT)
+                        .setMinimumUnit(TimeUnit.DAYS)
+                        .build())
+                .setShortTitle(ComplicationText.plainText("trip"))
+                .build());
+        TestFace.idle();
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(this.defaultTimeZone);
+    }
+
+    @Test
+    public void interactiveFramesDoNotAllocate() {
+        this.runSeconds(DrawAllocationTest.WARM_UP_SECONDS);
+        this.engine.resetDrawCounters();
+        this.runSeconds(DrawAllocationTest.MEASURED_SECONDS);
+
+        assertTrue("frames drawn: " + this.engine.getDrawCount(), this.engine.getDrawCount() >= DrawAllocationTest.MEASURED_SECONDS);
+        assertEquals("bytes allocated over " + this.engine.getDrawCount() + " frames", 0, this.engine.getDrawAllocatedBytes());
+    }
+
+    @Test
+    public void ambientFramesDoNotAllocate() {
+        this.engine.onAmbientModeChanged(true);
+        TestFace.idle();
+
+        this.runMinutes(DrawAllocationTest.WARM_UP_MINUTES);
+        this.engine.resetDrawCounters();
+        this.runMinutes(DrawAllocationTest.MEASURED_MINUTES);
+
+        assertTrue("frames drawn: " + this.engine.getDrawCount(), this.engine.getDrawCount() >= DrawAllocationTest.MEASURED_MINUTES);
+        assertEquals("bytes allocated over " + this.engine.getDrawCount() + " frames", 0, this.engine.getDrawAllocatedBytes());
+    }
+
+    private void runSeconds(int seconds) {
+        for (int i = 0; i < seconds; i++) {
+            ShadowLooper.shadowMainLooper().idleFor(Duration.ofSeconds(1));
+            TestFace.idle();
+        }
+    }
+
+    // Ambient frames are only drawn on the system's time ticks, which come once a minute.
+    private void runMinutes(int minutes) {
+        for (int i = 0; i < minutes; i++) {
+            ShadowLooper.shadowMainLooper().idleFor(Duration.ofMinutes(1));
+            this.engine.onTimeTick();
+            TestFace.idle();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.billyhe.realiestsimplest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertTrue;
+
+// A dump command, like "adb shell dumpsys activity service .RealiestSimplestFace quality low", shows its own effect in
+// the dump it was given to, whether the dump runs on a binder thread or on the engine's.
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class DumpCommandTest {
+    private static final int SIZE = 416;
+
+    @Test
+    public void commandFromBinderThreadShowsInItsDump() throws InterruptedException {
+        final TestFace face = TestFace.create(new SimulatedClock(0));
+        face.startEngine(DumpCommandTest.SIZE, DumpCommandTest.SIZE);
+
+        final StringWriter dump = new StringWriter();
+        final Thread binder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                DumpCommandTest.dump(face, dump, "quality", "low");
+            }
+        });
+        binder.start();
+        // The main looper is the test's own thread, so it runs the handed over command while the dump waits.
+        while (binder.isAlive()) {
+            TestFace.idle();
+            binder.join(10);
+        }
+
+        assertTrue(dump.toString(), dump.toString().contains("override: LOW"));
+    }
+
+    @Test
+    public void commandFromEngineThreadShowsInItsDump() {
+        final TestFace face = TestFace.create(new SimulatedClock(0));
+        face.startEngine(DumpCommandTest.SIZE, DumpCommandTest.SIZE);
+
+        final StringWriter dump = new StringWriter();
+        DumpCommandTest.dump(face, dump, "quality", "medium");
+
+        assertTrue(dump.toString(), dump.toString().contains("override: MEDIUM"));
+    }
+
+    private static void dump(TestFace face, StringWriter output, String... args) {
+        final PrintWriter writer = new PrintWriter(output);
+        face.dump(null, writer, args);
+        writer.flush();
+    }
+}
@@ -0,0 +1,197 @@
+package com.billyhe.realiestsimplest;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Region;
+import android.graphics.RegionIterator;
+
+import com.billyhe.realiestsimplest.core.ClockPose;
+import com.billyhe.realiestsimplest.core.FaceLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Composited frames, which only repaint what the hands moved through, must come out exactly like full redraws.
+// The walks below make hands overlap each other and the hub indicator drawn as the overlay.
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class FrameCompositorTest {
+    private static final int SIZE = 416;
+    private static final float SPRITE_PADDING = 4f;
+    private static final int RIM_MARKERS = 60;
+
+    private final FaceLayout faceLayout = new FaceLayout();
+    private final ClockPose pose = new ClockPose(ZoneOffset.UTC);
+    private final float[] rotations = new float[3];
+
+    private HandBuilder[] hands;
+    private Bitmap background;
+    private FrameCompositor.Overlay overlay;
+
+    @Before
+    public void setUp() {
+        this.faceLayout.update(FrameCompositorTest.SIZE, FrameCompositorTest.SIZE);
+
+        final Paint handPaint = new Paint();
+        handPaint.setColor(Color.WHITE);
+        handPaint.setAntiAlias(true);
+        handPaint.setShadowLayer(1, 0, 0, Color.BLACK);
+        final Paint secondHandPaint = new Paint(handPaint);
+        secondHandPaint.setColor(Color.rgb(255, 87, 34));
+
+        this.hands = new HandBuilder[] {
+                this.createHand(this.faceLayout.getHourHandLength(), 0f, 4f, 6f, 14f, handPaint),
+                this.createHand(this.faceLayout.getMinuteHandLength(), 0f, 4f, 6f, 14f, handPaint),
+                this.createHand(this.faceLayout.getSecondHandLength(), this.faceLayout.getSecondHandTailLength(), 2f, 4f, 10f, secondHandPaint),
+        };
+
+        // Markers all around the rim, so that restoring the wrong part of the background would show.
+        this.background = Bitmap.createBitmap(FrameCompositorTest.SIZE, FrameCompositorTest.SIZE, Bitmap.Config.ARGB_8888);
+        final Canvas canvas = new Canvas(this.background);
+        canvas.drawColor(Color.rgb(20, 20, 40));
+        final Paint markerPaint = new Paint();
+        markerPaint.setAntiAlias(true);
+        for (int i = 0; i < FrameCompositorTest.RIM_MARKERS; i++) {
+            markerPaint.setColor(Color.rgb(i * 4, 255 - i * 4, 128));
+            canvas.save();
+            canvas.rotate(i * 360f / FrameCompositorTest.RIM_MARKERS, this.faceLayout.getCenterX(), this.faceLayout.getCenterY());
+            canvas.drawCircle(this.faceLayout.getCenterX(), this.faceLayout.getCenterY() - this.faceLayout.getRimRadius(), 3f, markerPaint);
+            canvas.restore();
+        }
+
+        // Like the unread indicator on the hub, which every hand passes under.
+        final Paint indicatorPaint = new Paint(handPaint);
+        indicatorPaint.setColor(Color.RED);
+        this.overlay = new FrameCompositor.Overlay() {
+            @Override
+            public void draw(Canvas canvas) {
+                canvas.drawCircle(faceLayout.getCenterX(), faceLayout.getCenterY(), 6, handPaint);
+                canvas.drawCircle(faceLayout.getCenterX(), faceLayout.getCenterY(), 3, indicatorPaint);
+            }
+        };
+    }
+
+    @Test
+    public void composedFramesMatchFullRedraws() {
+        // Ticks across hour and minute changes, where all three hands move and overlap.
+        this.assertComposedMatchesRedrawn(ZonedDateTime.of(2021, 7, 4, 11, 58, 50, 0, ZoneOffset.UTC), 90, 1000);
+        // The hands sweeping over each other at 3:16.
+        this.assertComposedMatchesRedrawn(ZonedDateTime.of(2021, 7, 4, 3, 15, 0, 0, ZoneOffset.UTC), 120, 1000);
+        // Smooth-sweep frames, which only move the second hand a little at a time.
+        this.assertComposedMatchesRedrawn(ZonedDateTime.of(2021, 7, 4, 6, 29, 58, 0, ZoneOffset.UTC), 150, 33);
+    }
+
+    @Test
+    public void overlappingDamageIsCountedOnce() {
+        final FrameCompositor compositor = this.createCompositor();
+        final Bitmap frame = Bitmap.createBitmap(FrameCompositorTest.SIZE, FrameCompositorTest.SIZE, Bitmap.Config.ARGB_8888);
+        final Canvas canvas = new Canvas(frame);
+
+        final long beforeMs = ZonedDateTime.of(2021, 7, 4, 11, 59, 59, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+        this.compose(compositor, beforeMs, canvas);
+        assertEquals((long) FrameCompositorTest.SIZE * FrameCompositorTest.SIZE, compositor.getLastFramePixelsTouched());
+        final float[] beforeRotations = this.rotations.clone();
+
+        // All three hands move, through largely the same pixels.
+        this.compose(compositor, beforeMs + 1000, canvas);
+        final Region damage = new Region();
+        for (int i = 0; i < this.hands.length; i++) {
+            final RectF bounds = this.getBounds(i, beforeRotations[i]);
+            bounds.union(this.getBounds(i, this.rotations[i]));
+            final Rect rect = new Rect();
+            bounds.roundOut(rect);
+            damage.op(rect, Region.Op.UNION);
+        }
+        damage.op(0, 0, FrameCompositorTest.SIZE, FrameCompositorTest.SIZE, Region.Op.INTERSECT);
+
+        long expectedPixels = 0;
+        final RegionIterator iterator = new RegionIterator(damage);
+        final Rect rect = new Rect();
+        while (iterator.next(rect)) {
+            expectedPixels += (long) rect.width() * rect.height();
+        }
+        assertEquals(expectedPixels, compositor.getLastFramePixelsTouched());
+        assertTrue(compositor.getPixelsTouched() < 2L * FrameCompositorTest.SIZE * FrameCompositorTest.SIZE);
+    }
+
+    private void assertComposedMatchesRedrawn(ZonedDateTime start, int frameCount, long frameIntervalMs) {
+        final FrameCompositor composed = this.createCompositor();
+        final FrameCompositor redrawn = this.createCompositor();
+        final Bitmap composedFrame = Bitmap.createBitmap(FrameCompositorTest.SIZE, FrameCompositorTest.SIZE, Bitmap.Config.ARGB_8888);
+        final Bitmap redrawnFrame = Bitmap.createBitmap(FrameCompositorTest.SIZE, FrameCompositorTest.SIZE, Bitmap.Config.ARGB_8888);
+        final Canvas composedCanvas = new Canvas(composedFrame);
+        final Canvas redrawnCanvas = new Canvas(redrawnFrame);
+
+        final long startMs = start.toInstant().toEpochMilli();
+        for (int i = 0; i < frameCount; i++) {
+            final long timeMs = startMs + i * frameIntervalMs;
+            this.compose(composed, timeMs, composedCanvas);
+            redrawn.invalidate();
+            this.compose(redrawn, timeMs, redrawnCanvas);
+
+            final BitmapDiff diff = new BitmapDiff(redrawnFrame, composedFrame);
+            assertEquals("frame " + i + " after " + start + ": " + diff, 0, diff.getDifferingPixelCount());
+        }
+
+        assertEquals(1, composed.getFullFrameCount());
+        assertEquals(frameCount, redrawn.getFullFrameCount());
+    }
+
+    private FrameCompositor createCompositor() {
+        final FrameCompositor compositor = new FrameCompositor(this.hands);
+        compositor.setPivotX(this.faceLayout.getCenterX());
+        compositor.setPivotY(this.faceLayout.getCenterY());
+        compositor.setBackground(this.background);
+        compositor.setOverlay(this.overlay);
+        compositor.resize(FrameCompositorTest.SIZE, FrameCompositorTest.SIZE);
+        return compositor;
+    }
+
+    private void compose(FrameCompositor compositor, long timeMs, Canvas canvas) {
+        this.pose.update(timeMs);
+        this.rotations[0] = this.pose.getHourRotation();
+        this.rotations[1] = this.pose.getMinuteRotation();
+        this.rotations[2] = this.pose.getSecondRotation();
+        compositor.compose(this.rotations, canvas);
+    }
+
+    // Where a hand's sprite ends up, as computed by FrameCompositor.
+    private RectF getBounds(int index, float rotation) {
+        final HandBuilder hand = this.hands[index];
+        final RectF bounds = new RectF(hand.getSpriteLeft(), hand.getSpriteTop(), hand.getSpriteLeft() + hand.getSprite().getWidth(), hand.getSpriteTop() + hand.getSprite().getHeight());
+        final Matrix matrix = new Matrix();
+        matrix.setRotate(rotation, this.faceLayout.getCenterX(), this.faceLayout.getCenterY());
+        matrix.mapRect(bounds);
+        bounds.inset(-1, -1);
+        return bounds;
+    }
+
+    private HandBuilder createHand(float handLength, float tailLength, float tipSize, float baseWidth, float circleRadius, Paint paint) {
+        final HandBuilder hand = new HandBuilder();
+        hand.setOriginX(this.faceLayout.getCenterX());
+        hand.setOriginY(this.faceLayout.getCenterY());
+        hand.setHandLength(handLength);
+        hand.setTailLength(tailLength);
+        hand.setTipWidth(tipSize);
+        hand.setTipHeight(tipSize);
+        hand.setBaseWidth(baseWidth);
+        hand.setCircleRadius(circleRadius);
+        hand.rebuild();
+        hand.rebuildSprite(paint, FrameCompositorTest.SPRITE_PADDING);
+        return hand;
+    }
+}
@@ -0,0 +1,248 @@
+package com.billyhe.realiestsimplest;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.annotation.GraphicsMode;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+// Renders the face at fixed instants for every device profile, render quality, mode and notification indicator state,
+// and compares the frames against the golden images in src/test/snapshots/<profile>/. What each frame cost to draw
+// goes to bench_output.txt. After an intended visual change, re-record the goldens and review them in the diff:
+// ./gradlew :app:testDebugUnitTest --tests '*GoldenImageTest' -Psnapshots.record
+@RunWith(ParameterizedRobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class GoldenImageTest {
+    // Local times, so that the goldens don't depend on the zone they were recorded in: a leap day, the last second
+    // of a year (the longest rim texts), and a summer night.
+    private static final LocalDateTime[] TIMES = {
+            LocalDateTime.of(2020, 2, 29, 10, 8, 36),
+            LocalDateTime.of(2020, 12, 31, 23, 59, 59),
+            LocalDateTime.of(2021, 7, 4, 3, 45, 15),
+    };
+    private static final ZoneId ZONE = ZoneId.of("America/Los_Angeles");
+
+    // Notification and unread counts for each indicator state.
+    private static final String[] INDICATOR_NAMES = { "none", "notifications", "unread" };
+    private static final int[][] INDICATOR_COUNTS = { { 0, 0 }, { 2, 0 }, { 2, 1 } };
+
+    // Anti-aliasing may differ by a shade between the native graphics libraries of different hosts.
+    private static final int MAX_CHANNEL_DIFF = 8;
+    private static final double MAX_DIFFERING_PIXEL_FRACTION = 0.002;
+
+    private static class DeviceProfile {
+        private final String id;
+        private final String name;
+        private final int width;
+        private final int height;
+
+        DeviceProfile(String id, String name, int width, int height) {
+            this.id = id;
+            this.name = name;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%dx%d)", this.name, this.width, this.height);
+        }
+    }
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "{0}")
+    public static List<Object[]> profiles() throws Exception {
+        final File dir = new File(GoldenImageTest.getProperty("deviceProfiles"));
+        final File[] files = dir.listFiles();
+        if (files == null) {
+            throw new IOException("no device profiles in " + dir);
+        }
+        Arrays.sort(files);
+
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        final List<Object[]> profiles = new ArrayList<>();
+        for (File file : files) {
+            if (!file.getName().endsWith(".xml")) {
+                continue;
+            }
+
+            final Document document = factory.newDocumentBuilder().parse(file);
+            final Element device = (Element) document.getElementsByTagNameNS("*", "device").item(0);
+            if (device == null) {
+                throw new IOException("no device in " + file);
+            }
+            profiles.add(new Object[] { new DeviceProfile(
+                    file.getName().substring(0, file.getName().length() - ".xml".length()),
+                    GoldenImageTest.getText(device, "name"),
+                    Integer.parseInt(GoldenImageTest.getText(device, "x-dimension")),
+                    Integer.parseInt(GoldenImageTest.getText(device, "y-dimension"))) });
+        }
+
+        if (profiles.isEmpty()) {
+            throw new IOException("no device profiles in " + dir);
+        }
+        return profiles;
+    }
+
+    private final DeviceProfile profile;
+    private TimeZone defaultTimeZone;
+    private android.icu.util.TimeZone defaultIcuTimeZone;
+
+    public GoldenImageTest(DeviceProfile profile) {
+        this.profile = profile;
+    }
+
+    @Before
+    public void setUp() {
+        // The face formats its rim texts with ICU, whose default zone is kept apart from the JDK's and outlives
+        // the test that first read it, so both are set.
+        this.defaultTimeZone = TimeZone.getDefault();
+        this.defaultIcuTimeZone = android.icu.util.TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone(GoldenImageTest.ZONE));
+        android.icu.util.TimeZone.setDefault(android.icu.util.TimeZone.getTimeZone(GoldenImageTest.ZONE.getId()));
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(this.defaultTimeZone);
+        android.icu.util.TimeZone.setDefault(this.defaultIcuTimeZone);
+    }
+
+    @Test
+    public void framesMatchGoldens() throws IOException {
+        final boolean record = Boolean.parseBoolean(System.getProperty("snapshots.record"));
+        final File goldenDir = new File(GoldenImageTest.getProperty("snapshots"), this.profile.id);
+        final File failureDir = new File(GoldenImageTest.getProperty("snapshots.failures"), this.profile.id);
+        if (record && !goldenDir.isDirectory() && !goldenDir.mkdirs()) {
+            throw new IOException("cannot create " + goldenDir);
+        }
+
+        final SimulatedClock clock = new SimulatedClock(GoldenImageTest.TIMES[0].atZone(GoldenImageTest.ZONE).toInstant().toEpochMilli());
+        final TestFace.TestEngine engine = TestFace.create(clock).startEngine(this.profile.width, this.profile.height);
+        final List<String> failures = new ArrayList<>();
+
+        try (PrintWriter bench = new PrintWriter(new FileWriter(GoldenImageTest.getProperty("benchOutput"), true))) {
+            bench.printf("# %s, %s: frame CPU time in microseconds%n", this.profile.id, this.profile);
+
+            for (RenderQuality quality : RenderQuality.values()) {
+                engine.setOverrideQuality(quality);
+                TestFace.idle();
+
+                for (LocalDateTime time : GoldenImageTest.TIMES) {
+                    clock.setTimeMs(time.atZone(GoldenImageTest.ZONE).toInstant().toEpochMilli());
+
+                    for (int indicator = 0; indicator < GoldenImageTest.INDICATOR_NAMES.length; indicator++) {
+                        engine.onNotificationCountChanged(GoldenImageTest.INDICATOR_COUNTS[indicator][0]);
+                        engine.onUnreadCountChanged(GoldenImageTest.INDICATOR_COUNTS[indicator][1]);
+
+                        for (boolean ambient : new boolean[] { false, true }) {
+                            engine.onAmbientModeChanged(ambient);
+                            TestFace.idle();
+
+                            final long startCpuNanos = engine.getDrawCpuNanos();
+                            engine.draw();
+                            final long frameCpuNanos = engine.getDrawCpuNanos() - startCpuNanos;
+
+                            final String frameName = String.format(Locale.ROOT, "%s-%s-%02d%02d%02d-%s", quality.name().toLowerCase(Locale.ROOT), ambient ? "ambient" : "interactive", time.getHour(), time.getMinute(), time.getSecond(), GoldenImageTest.INDICATOR_NAMES[indicator]);
+                            bench.printf("%s %d%n", frameName, TimeUnit.NANOSECONDS.toMicros(frameCpuNanos));
+
+                            final File golden = new File(goldenDir, frameName + ".png");
+                            if (record) {
+                                GoldenImageTest.writePng(engine.getFrame(), golden);
+                                continue;
+                            }
+
+                            final String failure = this.compare(golden, engine.getFrame(), new File(failureDir, frameName + ".png"));
+                            if (failure != null) {
+                                failures.add(frameName + ": " + failure);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            fail(String.format("%d frames of %s differ from the goldens in %s (actual frames are in %s):%n  %s%n"
+                            + "If the change is intended, re-record them with -Psnapshots.record and review the diff.",
+                    failures.size(), this.profile, goldenDir, failureDir, String.join(String.format("%n  "), failures)));
+        }
+    }
+
+    // Returns why the frame doesn't match the golden, writing it to failureFile for inspection; null if it matches.
+    private String compare(File golden, Bitmap frame, File failureFile) throws IOException {
+        if (!golden.isFile()) {
+            GoldenImageTest.writePng(frame, failureFile);
+            return "no golden image";
+        }
+
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        final Bitmap expected = BitmapFactory.decodeFile(golden.getPath(), options);
+        assertTrue("cannot decode " + golden, expected != null);
+        if (expected.getWidth() != frame.getWidth() || expected.getHeight() != frame.getHeight()) {
+            GoldenImageTest.writePng(frame, failureFile);
+            return String.format("golden is %dx%d", expected.getWidth(), expected.getHeight());
+        }
+
+        final BitmapDiff diff = new BitmapDiff(expected, frame);
+        if (diff.getMaxChannelDiff() > GoldenImageTest.MAX_CHANNEL_DIFF
+                || diff.getDifferingPixelCount() > GoldenImageTest.MAX_DIFFERING_PIXEL_FRACTION * frame.getWidth() * frame.getHeight()) {
+            GoldenImageTest.writePng(frame, failureFile);
+            return diff.toString();
+        }
+        return null;
+    }
+
+    private static void writePng(Bitmap bitmap, File file) throws IOException {
+        if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+            throw new IOException("cannot create " + file.getParentFile());
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        }
+    }
+
+    private static String getText(Element parent, String localName) throws IOException {
+        final Element element = (Element) parent.getElementsByTagNameNS("*", localName).item(0);
+        if (element == null) {
+            throw new IOException("device profile has no " + localName);
+        }
+        return element.getTextContent().trim();
+    }
+
+    // Set by the app's build.gradle.
+    private static String getProperty(String name) {
+        final String value = System.getProperty(name);
+        if (value == null) {
+            throw new IllegalStateException("system property " + name + " is not set; run the test through gradle");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,141 @@
+package com.billyhe.realiestsimplest;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.CornerPathEffect;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+
+import com.billyhe.realiestsimplest.core.FaceLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.GraphicsMode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Hands drawn from their sprites (as FrameCompositor does) must look like the paths they were rasterized from. Rotated
+// sprites are resampled, so edges may differ a little, but nothing may move or go missing.
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class HandSpriteTest {
+    private static final int SIZE = 416;
+    private static final float SPRITE_PADDING = 4f;
+
+    // No pixel may be off by more than half of full coverage, and all differences together by more than 3% of
+    // what the hand draws in total.
+    private static final int MAX_CHANNEL_DIFF = 128;
+    private static final double MAX_TOTAL_DIFF_FRACTION = 0.03;
+
+    private static final float[] ROTATIONS = { 0f, 6f, 37.5f, 90f, 137f, 180f, 263.25f, 354f };
+
+    private final FaceLayout faceLayout = new FaceLayout();
+    private final Paint handPaint = new Paint();
+    private final Paint spritePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    @Before
+    public void setUp() {
+        this.faceLayout.update(HandSpriteTest.SIZE, HandSpriteTest.SIZE);
+
+        // The interactive hands at high quality, which bakes the most into the sprites.
+        this.handPaint.setColor(Color.WHITE);
+        this.handPaint.setStyle(Paint.Style.FILL);
+        this.handPaint.setAntiAlias(true);
+        this.handPaint.setPathEffect(new CornerPathEffect(2));
+        this.handPaint.setShadowLayer(1, 0, 0, Color.BLACK);
+    }
+
+    @Test
+    public void unrotatedSpriteMatchesPath() {
+        final HandBuilder hand = this.buildMinuteHand();
+        final BitmapDiff diff = new BitmapDiff(this.drawPath(hand, 0f), this.drawSprite(hand, 0f));
+
+        // Sprites sit on whole pixels, so without rotation they are blitted as rasterized.
+        assertTrue(diff.toString(), diff.getMaxChannelDiff() <= 1);
+    }
+
+    @Test
+    public void rotatedSpritesMatchPath() {
+        for (HandBuilder hand : new HandBuilder[] { this.buildMinuteHand(), this.buildSecondHand() }) {
+            for (float rotation : HandSpriteTest.ROTATIONS) {
+                final Bitmap expected = this.drawPath(hand, rotation);
+                final BitmapDiff diff = new BitmapDiff(expected, this.drawSprite(hand, rotation));
+                final String message = "at " + rotation + " degrees: " + diff;
+
+                assertTrue(message, diff.getMaxChannelDiff() <= HandSpriteTest.MAX_CHANNEL_DIFF);
+                assertTrue(message, diff.getTotalChannelDiff() <= BitmapDiff.sumChannels(expected) * HandSpriteTest.MAX_TOTAL_DIFF_FRACTION);
+            }
+        }
+    }
+
+    @Test
+    public void spritePaddingContainsEverythingDrawn() {
+        for (HandBuilder hand : new HandBuilder[] { this.buildMinuteHand(), this.buildSecondHand() }) {
+            final Bitmap sprite = hand.getSprite();
+            for (int x = 0; x < sprite.getWidth(); x++) {
+                assertEquals("top edge at " + x, 0, Color.alpha(sprite.getPixel(x, 0)));
+                assertEquals("bottom edge at " + x, 0, Color.alpha(sprite.getPixel(x, sprite.getHeight() - 1)));
+            }
+            for (int y = 0; y < sprite.getHeight(); y++) {
+                assertEquals("left edge at " + y, 0, Color.alpha(sprite.getPixel(0, y)));
+                assertEquals("right edge at " + y, 0, Color.alpha(sprite.getPixel(sprite.getWidth() - 1, y)));
+            }
+        }
+    }
+
+    private HandBuilder buildMinuteHand() {
+        final HandBuilder hand = this.createHand(4f, 6f, 14f);
+        hand.setHandLength(this.faceLayout.getMinuteHandLength());
+        hand.rebuild();
+        hand.rebuildSprite(this.handPaint, HandSpriteTest.SPRITE_PADDING);
+        return hand;
+    }
+
+    private HandBuilder buildSecondHand() {
+        final HandBuilder hand = this.createHand(2f, 4f, 10f);
+        hand.setHandLength(this.faceLayout.getSecondHandLength());
+        hand.setTailLength(this.faceLayout.getSecondHandTailLength());
+        hand.rebuild();
+        hand.rebuildSprite(this.handPaint, HandSpriteTest.SPRITE_PADDING);
+        return hand;
+    }
+
+    private HandBuilder createHand(float tipSize, float baseWidth, float circleRadius) {
+        final HandBuilder hand = new HandBuilder();
+        hand.setOriginX(this.faceLayout.getCenterX());
+        hand.setOriginY(this.faceLayout.getCenterY());
+        hand.setTipWidth(tipSize);
+        hand.setTipHeight(tipSize);
+        hand.setBaseWidth(baseWidth);
+        hand.setCircleRadius(circleRadius);
+        return hand;
+    }
+
+    private Bitmap drawPath(HandBuilder hand, float rotation) {
+        final Bitmap frame = HandSpriteTest.createFrame();
+        final Canvas canvas = new Canvas(frame);
+        canvas.rotate(rotation, this.faceLayout.getCenterX(), this.faceLayout.getCenterY());
+        canvas.drawPath(hand.getPath(), this.handPaint);
+        return frame;
+    }
+
+    // The same transform as FrameCompositor.drawHand().
+    private Bitmap drawSprite(HandBuilder hand, float rotation) {
+        final Bitmap frame = HandSpriteTest.createFrame();
+        final Matrix matrix = new Matrix();
+        matrix.setTranslate(hand.getSpriteLeft(), hand.getSpriteTop());
+        matrix.postRotate(rotation, this.faceLayout.getCenterX(), this.faceLayout.getCenterY());
+        new Canvas(frame).drawBitmap(hand.getSprite(), matrix, this.spritePaint);
+        return frame;
+    }
+
+    private static Bitmap createFrame() {
+        final Bitmap frame = Bitmap.createBitmap(HandSpriteTest.SIZE, HandSpriteTest.SIZE, Bitmap.Config.ARGB_8888);
+        frame.eraseColor(Color.BLACK);
+        return frame;
+    }
+}
@@ -0,0 +1,277 @@
+package com.billyhe.realiestsimplest;
+
+import android.content.Intent;
+import android.os.Looper;
+import android.os.Message;
+import android.os.SystemClock;
+
+import com.billyhe.realiestsimplest.core.EngineTrace;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.GraphicsMode;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.shadows.ShadowSystemClock;
+import org.robolectric.util.ReflectionHelpers;
+
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assume.assumeTrue;
+
+// Replays an engine trace (as written by the "trace" dump command) through the real engine on a simulated clock, as
+// fast as it can, and reports what the face costs per simulated hour (draws, time ticks, interactive timer wakeups and
+// how late they ran after the second they were scheduled for, draw CPU time), followed by the face's own dump (wakeups,
+// redraw and prerender counts). Only runs when asked to:
+// ./gradlew :app:testDebugUnitTest --tests '*ReplayTest' -Preplay.trace=<file> | -Preplay.seed=<n> [-Preplay.latency=<ms>]
+// A seed replays a generated day (see SyntheticDay). The latency delays every main thread message, as a busy main
+// thread would. The report goes to standard output and to app/build/replay.txt.
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class ReplayTest {
+    private static final long HOUR_MS = TimeUnit.HOURS.toMillis(1);
+    private static final long SECOND_MS = TimeUnit.SECONDS.toMillis(1);
+
+    // Surface size in pixels, that of the Fossil Gen 5 device profile.
+    private static final int WIDTH = 416;
+    private static final int HEIGHT = 416;
+
+    // What the face cost over one simulated hour.
+    private static class HourStats {
+        private long draws = 0;
+        private long timeTicks = 0;
+        private long drawCpuNanos = 0;
+        // Timer wakeups scheduled for a second boundary, and how long after it they ran.
+        private long alignedWakeups = 0;
+        private long driftSumMs = 0;
+        private long driftMaxMs = 0;
+    }
+
+    private TimeZone defaultTimeZone;
+    private android.icu.util.TimeZone defaultIcuTimeZone;
+
+    private SimulatedClock clock;
+    private TestFace face;
+    private TestFace.TestEngine engine;
+    private long latencyMs;
+
+    private long startMs;
+    private final List<HourStats> hours = new ArrayList<>();
+    private long accountedDraws = 0;
+    private long accountedDrawCpuNanos = 0;
+
+    @Before
+    public void setUp() {
+        this.defaultTimeZone = TimeZone.getDefault();
+        this.defaultIcuTimeZone = android.icu.util.TimeZone.getDefault();
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(this.defaultTimeZone);
+        android.icu.util.TimeZone.setDefault(this.defaultIcuTimeZone);
+    }
+
+    @Test
+    public void replay() throws IOException {
+        final String tracePath = System.getProperty("replay.trace");
+        final String seed = System.getProperty("replay.seed");
+        assumeTrue("no trace or seed to replay", tracePath != null || seed != null);
+
+        final EngineTrace trace;
+        if (tracePath != null) {
+            try (Reader reader = new FileReader(tracePath)) {
+                trace = EngineTrace.read(reader);
+            }
+        } else {
+            trace = SyntheticDay.generate(Long.parseLong(seed));
+        }
+        this.latencyMs = Long.getLong("replay.latency", 0);
+
+        final long startNanos = System.nanoTime();
+        this.replay(trace);
+        final long elapsedNanos = System.nanoTime() - startNanos;
+
+        final StringWriter report = new StringWriter();
+        final PrintWriter writer = new PrintWriter(report);
+        this.report(writer);
+        if (trace.getSize() > 0) {
+            final long simulatedMs = trace.getTimeMs(trace.getSize() - 1) - trace.getTimeMs(0);
+            writer.printf("replayed %d events (%.1f simulated hours) in %.0fms%n", trace.getSize(), simulatedMs / (double) ReplayTest.HOUR_MS, elapsedNanos / 1e6);
+        }
+        writer.println();
+        this.face.dump(null, writer, new String[0]);
+        writer.flush();
+
+        System.out.print(report);
+        final String outputPath = System.getProperty("replay.output");
+        if (outputPath != null) {
+            try (FileWriter output = new FileWriter(outputPath)) {
+                output.write(report.toString());
+            }
+        }
+    }
+
+    private void replay(EngineTrace trace) {
+        if (trace.getSize() == 0) {
+            return;
+        }
+
+        // Start in the trace's first zone, as the engine would have.
+        this.startMs = trace.getTimeMs(0);
+        for (int i = 0; i < trace.getSize() && trace.getTimeMs(i) == this.startMs; i++) {
+            if (trace.getEvent(i) == EngineTrace.Event.TIME_ZONE) {
+                ReplayTest.setDefaultZone(trace.getZoneId(i));
+            }
+        }
+
+        this.clock = new SimulatedClock(this.startMs);
+        this.face = TestFace.create(this.clock);
+        this.engine = this.face.startEngine(ReplayTest.WIDTH, ReplayTest.HEIGHT);
+        this.account();
+
+        // Engine callbacks run when they were recorded, since their recorded time is when they ran. Whatever they
+        // post runs on the main looper as the simulated time reaches it.
+        for (int i = 0; i < trace.getSize(); i++) {
+            this.runUntil(trace.getTimeMs(i));
+            this.dispatch(trace, i);
+            this.account();
+        }
+
+        // And whatever the last event scheduled for the same time.
+        this.runUntil(trace.getTimeMs(trace.getSize() - 1));
+    }
+
+    private void dispatch(EngineTrace trace, int index) {
+        final int value = trace.getValue(index);
+        switch (trace.getEvent(index)) {
+            case VISIBILITY:
+                this.engine.onVisibilityChanged(value != 0);
+                break;
+            case AMBIENT_MODE:
+                this.engine.onAmbientModeChanged(value != 0);
+                break;
+            case TIME_TICK:
+                this.getHourStats().timeTicks++;
+                this.engine.onTimeTick();
+                break;
+            case NOTIFICATION_COUNT:
+                this.engine.onNotificationCountChanged(value);
+                break;
+            case UNREAD_COUNT:
+                this.engine.onUnreadCountChanged(value);
+                break;
+            case TIME_ZONE:
+                // As the system does: change the default zone, then tell whoever is listening.
+                ReplayTest.setDefaultZone(trace.getZoneId(index));
+                RuntimeEnvironment.getApplication().sendBroadcast(new Intent(Intent.ACTION_TIMEZONE_CHANGED));
+                break;
+        }
+    }
+
+    // Runs the main looper messages due by the given time in order, each of them the latency after it was due, and
+    // after each one whatever it handed to background loopers (i.e. prerenders). Leaves the clock at the given time,
+    // or later if the latency pushed the last message past it.
+    private void runUntil(long timeMs) {
+        final ShadowLooper mainLooper = ShadowLooper.shadowMainLooper();
+        final long untilUptimeMs = SystemClock.uptimeMillis() + timeMs - this.clock.currentTimeMillis();
+
+        while (true) {
+            // Zero when nothing is scheduled at all.
+            final long dueUptimeMs = mainLooper.getNextScheduledTaskTime().toMillis();
+            if (dueUptimeMs == 0 || dueUptimeMs > untilUptimeMs) {
+                break;
+            }
+
+            final long runUptimeMs = dueUptimeMs + this.latencyMs;
+            if (runUptimeMs > SystemClock.uptimeMillis()) {
+                ShadowSystemClock.advanceBy(Duration.ofMillis(runUptimeMs - SystemClock.uptimeMillis()));
+            }
+            // The queue's head is the message due first, which runOneTask() runs.
+            final Message message = ReflectionHelpers.getField(Looper.getMainLooper().getQueue(), "mMessages");
+            if (message != null && this.engine.isTimerTick(message)) {
+                this.accountWakeup(dueUptimeMs);
+            }
+            mainLooper.runOneTask();
+            TestFace.idleBackgroundLoopers();
+            this.account();
+        }
+
+        if (untilUptimeMs > SystemClock.uptimeMillis()) {
+            ShadowSystemClock.advanceBy(Duration.ofMillis(untilUptimeMs - SystemClock.uptimeMillis()));
+        }
+    }
+
+    // Timer ticks are scheduled for the next second boundary (except for the first one after the timer starts, which
+    // is due right away), so how long after the due time one runs is its drift.
+    private void accountWakeup(long dueUptimeMs) {
+        final long dueMs = this.clock.currentTimeMillis() - (SystemClock.uptimeMillis() - dueUptimeMs);
+        if (dueMs % ReplayTest.SECOND_MS != 0) {
+            return;
+        }
+
+        final HourStats stats = this.getHourStats();
+        final long driftMs = SystemClock.uptimeMillis() - dueUptimeMs;
+        stats.alignedWakeups++;
+        stats.driftSumMs += driftMs;
+        stats.driftMaxMs = Math.max(stats.driftMaxMs, driftMs);
+    }
+
+    // Attributes the draws since the last call to the current hour.
+    private void account() {
+        final HourStats stats = this.getHourStats();
+        stats.draws += this.engine.getDrawCount() - this.accountedDraws;
+        stats.drawCpuNanos += this.engine.getDrawCpuNanos() - this.accountedDrawCpuNanos;
+        this.accountedDraws = this.engine.getDrawCount();
+        this.accountedDrawCpuNanos = this.engine.getDrawCpuNanos();
+    }
+
+    private void report(PrintWriter writer) {
+        writer.printf("%-6s %8s %8s %8s %12s %12s %12s%n", "hour", "draws", "ticks", "wakeups", "drift avg", "drift max", "draw cpu");
+
+        final HourStats total = new HourStats();
+        for (int hour = 0; hour < this.hours.size(); hour++) {
+            final HourStats stats = this.hours.get(hour);
+            ReplayTest.printStats(writer, String.valueOf(hour), stats);
+
+            total.draws += stats.draws;
+            total.timeTicks += stats.timeTicks;
+            total.drawCpuNanos += stats.drawCpuNanos;
+            total.alignedWakeups += stats.alignedWakeups;
+            total.driftSumMs += stats.driftSumMs;
+            total.driftMaxMs = Math.max(total.driftMaxMs, stats.driftMaxMs);
+        }
+        ReplayTest.printStats(writer, "total", total);
+    }
+
+    private static void printStats(PrintWriter writer, String label, HourStats stats) {
+        final double driftAvgMs = stats.alignedWakeups > 0 ? (double) stats.driftSumMs / stats.alignedWakeups : 0;
+        writer.printf("%-6s %8d %8d %8d %10.1fms %10dms %10.2fms%n", label, stats.draws, stats.timeTicks, stats.alignedWakeups, driftAvgMs, stats.driftMaxMs, stats.drawCpuNanos / 1e6);
+    }
+
+    private HourStats getHourStats() {
+        final int hour = (int) Math.max(0, (this.clock.currentTimeMillis() - this.startMs) / ReplayTest.HOUR_MS);
+        while (this.hours.size() <= hour) {
+            this.hours.add(new HourStats());
+        }
+        return this.hours.get(hour);
+    }
+
+    private static void setDefaultZone(String zoneId) {
+        TimeZone.setDefault(TimeZone.getTimeZone(zoneId));
+        android.icu.util.TimeZone.setDefault(android.icu.util.TimeZone.getTimeZone(zoneId));
+    }
+}
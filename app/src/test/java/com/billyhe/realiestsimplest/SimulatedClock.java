@@ -0,0 +1,25 @@
+package com.billyhe.realiestsimplest;
+
+import android.os.SystemClock;
+
+import com.billyhe.realiestsimplest.core.Clock;
+
+// A wall clock that runs with Robolectric's SystemClock, so that idling the main looper for a while also moves the
+// time the engine sees forward by as much.
+public class SimulatedClock implements Clock {
+    private long offsetMs;
+
+    public SimulatedClock(long timeMs) {
+        this.setTimeMs(timeMs);
+    }
+
+    // Jumps to the given time, without running anything that would have been due in between.
+    public void setTimeMs(long timeMs) {
+        this.offsetMs = timeMs - SystemClock.uptimeMillis();
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return this.offsetMs + SystemClock.uptimeMillis();
+    }
+}
@@ -0,0 +1,142 @@
+package com.billyhe.realiestsimplest;
+
+import com.billyhe.realiestsimplest.core.EngineTrace;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Generates a day of engine events for a watch worn from 07:00 to 23:00, the same for the same seed: the face is
+// always on in ambient mode, and turns interactive whenever the wrist is raised. Some raises open an app (hiding the
+// face) or read notifications, which arrive in bursts during the day. Midway through, the wearer flies a time zone
+// east. The day is one no other test runs on, since the engine's wakeup accounting is kept per hour for the process.
+public class SyntheticDay {
+    private static final long MINUTE_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final long DAY_MS = TimeUnit.DAYS.toMillis(1);
+
+    private static final ZoneId HOME_ZONE = ZoneId.of("America/Los_Angeles");
+    private static final ZoneId AWAY_ZONE = ZoneId.of("America/Denver");
+    private static final LocalDateTime START = LocalDateTime.of(2021, 9, 12, 0, 0);
+    private static final long WAKE_MS = TimeUnit.HOURS.toMillis(7);
+    private static final long SLEEP_MS = TimeUnit.HOURS.toMillis(23);
+    private static final long TIME_ZONE_CHANGE_MS = TimeUnit.HOURS.toMillis(14);
+
+    private static final long MEAN_RAISE_INTERVAL_MS = TimeUnit.MINUTES.toMillis(8);
+    private static final long MEAN_NOTIFICATION_INTERVAL_MS = TimeUnit.MINUTES.toMillis(30);
+    private static final double APP_RAISE_PROBABILITY = 0.2;
+
+    private static class Entry {
+        private final long timeMs;
+        private final EngineTrace.Event event;
+        private final int value;
+        private final ZoneId zone;
+
+        Entry(long timeMs, EngineTrace.Event event, int value, ZoneId zone) {
+            this.timeMs = timeMs;
+            this.event = event;
+            this.value = value;
+            this.zone = zone;
+        }
+    }
+
+    private final Random random;
+    private final long startMs = SyntheticDay.START.atZone(SyntheticDay.HOME_ZONE).toInstant().toEpochMilli();
+    private final List<Entry> entries = new ArrayList<>();
+
+    private SyntheticDay(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public static EngineTrace generate(long seed) {
+        return new SyntheticDay(seed).build();
+    }
+
+    private EngineTrace build() {
+        this.entries.add(new Entry(0, EngineTrace.Event.TIME_ZONE, 0, SyntheticDay.HOME_ZONE));
+        this.add(0, EngineTrace.Event.NOTIFICATION_COUNT, 0);
+        this.add(0, EngineTrace.Event.UNREAD_COUNT, 0);
+        this.add(0, EngineTrace.Event.VISIBILITY, 1);
+        this.add(0, EngineTrace.Event.AMBIENT_MODE, 1);
+
+        // Time ticks come once a minute (a little after it) for as long as the face is up, which it almost always is.
+        for (long timeMs = SyntheticDay.MINUTE_MS; timeMs < SyntheticDay.DAY_MS; timeMs += SyntheticDay.MINUTE_MS) {
+            this.add(timeMs + this.random.nextInt(50), EngineTrace.Event.TIME_TICK, 0);
+        }
+
+        int notificationCount = 0;
+        int unreadCount = 0;
+        long nextNotificationMs = SyntheticDay.WAKE_MS + this.nextInterval(SyntheticDay.MEAN_NOTIFICATION_INTERVAL_MS);
+
+        long timeMs = SyntheticDay.WAKE_MS;
+        while (timeMs < SyntheticDay.SLEEP_MS) {
+            timeMs += this.nextInterval(SyntheticDay.MEAN_RAISE_INTERVAL_MS);
+
+            // Notifications that arrived since the last raise.
+            while (nextNotificationMs < timeMs) {
+                final int burst = 1 + this.random.nextInt(3);
+                notificationCount += burst;
+                unreadCount += burst;
+                this.add(nextNotificationMs, EngineTrace.Event.NOTIFICATION_COUNT, notificationCount);
+                this.add(nextNotificationMs, EngineTrace.Event.UNREAD_COUNT, unreadCount);
+                nextNotificationMs += this.nextInterval(SyntheticDay.MEAN_NOTIFICATION_INTERVAL_MS);
+            }
+
+            this.add(timeMs, EngineTrace.Event.AMBIENT_MODE, 0);
+            final long glanceMs = TimeUnit.SECONDS.toMillis(3 + this.random.nextInt(18));
+
+            if (this.random.nextDouble() < SyntheticDay.APP_RAISE_PROBABILITY) {
+                // An app covers the face for a while, and reading notifications there clears them.
+                final long appMs = TimeUnit.SECONDS.toMillis(30 + this.random.nextInt(270));
+                this.add(timeMs + glanceMs, EngineTrace.Event.VISIBILITY, 0);
+                if (unreadCount > 0) {
+                    unreadCount = 0;
+                    this.add(timeMs + glanceMs + appMs / 2, EngineTrace.Event.UNREAD_COUNT, 0);
+                }
+                if (notificationCount > 0 && this.random.nextBoolean()) {
+                    notificationCount = 0;
+                    this.add(timeMs + glanceMs + appMs / 2, EngineTrace.Event.NOTIFICATION_COUNT, 0);
+                }
+                this.add(timeMs + glanceMs + appMs, EngineTrace.Event.VISIBILITY, 1);
+                timeMs += glanceMs + appMs + TimeUnit.SECONDS.toMillis(5);
+            } else {
+                timeMs += glanceMs;
+            }
+
+            this.add(timeMs, EngineTrace.Event.AMBIENT_MODE, 1);
+        }
+
+        this.entries.add(new Entry(SyntheticDay.TIME_ZONE_CHANGE_MS, EngineTrace.Event.TIME_ZONE, 0, SyntheticDay.AWAY_ZONE));
+
+        // Stable, so that events at the same time keep the order they were generated in.
+        Collections.sort(this.entries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry a, Entry b) {
+                return Long.compare(a.timeMs, b.timeMs);
+            }
+        });
+
+        final EngineTrace trace = new EngineTrace(this.entries.size());
+        for (Entry entry : this.entries) {
+            if (entry.zone != null) {
+                trace.recordTimeZone(this.startMs + entry.timeMs, entry.zone.getId());
+            } else {
+                trace.record(this.startMs + entry.timeMs, entry.event, entry.value);
+            }
+        }
+        return trace;
+    }
+
+    private void add(long timeMs, EngineTrace.Event event, int value) {
+        this.entries.add(new Entry(timeMs, event, value, null));
+    }
+
+    // Exponentially distributed, as for events arriving at random at the given mean rate.
+    private long nextInterval(long meanMs) {
+        return (long) (-Math.log(1 - this.random.nextDouble()) * meanMs);
+    }
+}
@@ -0,0 +1,155 @@
+package com.billyhe.realiestsimplest;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.SurfaceHolder;
+
+import com.billyhe.realiestsimplest.core.Clock;
+
+import org.robolectric.Robolectric;
+import org.robolectric.shadow.api.Shadow;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.management.ManagementFactory;
+
+import lombok.Getter;
+
+// The face with engines that draw into a bitmap instead of onto a surface, on a clock the test controls. Robolectric
+// doesn't bind wallpapers, so tests call the engine callbacks the system would.
+public class TestFace extends RealiestSimplestFace {
+    private Clock clock = Clock.SYSTEM;
+
+    public static TestFace create(Clock clock) {
+        final TestFace face = Robolectric.buildService(TestFace.class).create().get();
+        face.clock = clock;
+        return face;
+    }
+
+    // Runs everything due on the main looper and then on the background ones (i.e. prerenders), without moving
+    // the clock, so that what happens on other threads is deterministic too. Shadows are looked up through
+    // ShadowLooper and Shadow.extract() rather than Shadows.shadowOf(), whose overloads name classes newer than the
+    // SDK the tests compile against.
+    public static void idle() {
+        ShadowLooper.shadowMainLooper().idle();
+        TestFace.idleBackgroundLoopers();
+    }
+
+    public static void idleBackgroundLoopers() {
+        for (Looper looper : ShadowLooper.getAllLoopers()) {
+            if (looper != Looper.getMainLooper()) {
+                final ShadowLooper shadowLooper = Shadow.extract(looper);
+                shadowLooper.idle();
+            }
+        }
+    }
+
+    @Override
+    Engine createEngine(StartupTimings startupTimings) {
+        return new TestEngine(startupTimings, this.clock);
+    }
+
+    // Creates an engine and brings it up the way binding to it would, leaving it visible and interactive.
+    public TestEngine startEngine(int width, int height) {
+        final TestEngine engine = (TestEngine) this.onCreateEngine();
+        engine.onCreate(null);
+        engine.onPropertiesChanged(new Bundle());
+        engine.onSurfaceChanged(null, PixelFormat.RGBA_8888, width, height);
+        engine.onVisibilityChanged(true);
+        TestFace.idle();
+        return engine;
+    }
+
+    public class TestEngine extends Engine {
+        private final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+        private boolean visible = false;
+        private boolean isDrawPosted = false;
+
+        @Getter private Bitmap frame;
+        private final Canvas frameCanvas = new Canvas();
+        private final Rect bounds = new Rect();
+
+        // What reading the allocated bytes costs by itself, which depends on the JVM.
+        private final long allocationOverheadBytes;
+
+        @Getter private long drawCount = 0;
+        @Getter private long drawCpuNanos = 0;
+        @Getter private long drawAllocatedBytes = 0;
+
+        private final Runnable drawTask = new Runnable() {
+            @Override
+            public void run() {
+                isDrawPosted = false;
+                draw();
+            }
+        };
+
+        TestEngine(StartupTimings startupTimings, Clock clock) {
+            super(startupTimings, clock);
+
+            long overheadBytes = Long.MAX_VALUE;
+            for (int i = 0; i < 3; i++) {
+                final long startBytes = this.getAllocatedBytes();
+                overheadBytes = Math.min(overheadBytes, this.getAllocatedBytes() - startBytes);
+            }
+            this.allocationOverheadBytes = overheadBytes;
+        }
+
+        @Override
+        public boolean isVisible() {
+            return this.visible;
+        }
+
+        @Override
+        public void onVisibilityChanged(boolean visible) {
+            this.visible = visible;
+            super.onVisibilityChanged(visible);
+        }
+
+        @Override
+        public void onSurfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+            if (this.frame == null || this.frame.getWidth() != width || this.frame.getHeight() != height) {
+                this.frame = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+                this.frameCanvas.setBitmap(this.frame);
+                this.bounds.set(0, 0, width, height);
+            }
+            super.onSurfaceChanged(holder, format, width, height);
+        }
+
+        // Coalesces requests into a single draw like the real one, but on the main looper rather than the next vsync.
+        @Override
+        public void invalidate() {
+            if (this.isDrawPosted) {
+                return;
+            }
+            this.isDrawPosted = true;
+            this.mainHandler.post(this.drawTask);
+        }
+
+        // Draws a frame right away, counting what it cost this thread.
+        public void draw() {
+            final long startCpuNanos = this.threadBean.getCurrentThreadCpuTime();
+            final long startBytes = this.getAllocatedBytes();
+            this.onDraw(this.frameCanvas, this.bounds);
+            this.drawAllocatedBytes += this.getAllocatedBytes() - startBytes - this.allocationOverheadBytes;
+            this.drawCpuNanos += this.threadBean.getCurrentThreadCpuTime() - startCpuNanos;
+            this.drawCount++;
+        }
+
+        public void resetDrawCounters() {
+            this.drawCount = 0;
+            this.drawCpuNanos = 0;
+            this.drawAllocatedBytes = 0;
+        }
+
+        private long getAllocatedBytes() {
+            return this.threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.billyhe.realiestsimplest.bench;
+
+import com.billyhe.realiestsimplest.core.ArcTextLayout;
+import com.billyhe.realiestsimplest.core.FaceLayout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Rim text layout, with glyph widths standing in for those of the monospace rim text font.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArcTextLayoutBenchmark {
+    // Length of the longer rim text, e.g. "SEP 30".
+    private static final int GLYPH_COUNT = 6;
+    private static final float GLYPH_WIDTH = 9.6f;
+
+    private final FaceLayout faceLayout = new FaceLayout();
+    private final ArcTextLayout layout = new ArcTextLayout();
+    private final float[] glyphWidths = new float[ArcTextLayoutBenchmark.GLYPH_COUNT];
+
+    @Setup
+    public void setUp() {
+        this.faceLayout.update(416, 416);
+        Arrays.fill(this.glyphWidths, ArcTextLayoutBenchmark.GLYPH_WIDTH);
+
+        this.layout.setCenterX(this.faceLayout.getCenterX());
+        this.layout.setCenterY(this.faceLayout.getCenterY());
+        this.layout.setRadius(this.faceLayout.getRimRadius());
+        this.layout.setAnchorAngle(275f);
+        this.layout.setAlign(ArcTextLayout.Align.LEFT);
+    }
+
+    @Benchmark
+    public float[] layout() {
+        this.layout.layout(this.glyphWidths, ArcTextLayoutBenchmark.GLYPH_COUNT);
+        return this.layout.getGlyphRotations();
+    }
+}
@@ -0,0 +1,66 @@
+package com.billyhe.realiestsimplest.bench;
+
+import com.billyhe.realiestsimplest.core.ClockPose;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+// Per-frame pose computation, at the pace of smooth-sweep frames, against Calendar as a baseline.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClockPoseBenchmark {
+    // A zone with DST transitions and one without.
+    @Param({ "America/Los_Angeles", "UTC" })
+    public String zone;
+
+    private static final long FRAME_INTERVAL_MS = 16;
+
+    private ClockPose pose;
+    private Calendar calendar;
+    private long timeMs;
+
+    @Setup
+    public void setUp() {
+        this.pose = new ClockPose(ZoneId.of(this.zone));
+        this.calendar = new GregorianCalendar(TimeZone.getTimeZone(this.zone));
+        this.timeMs = System.currentTimeMillis();
+    }
+
+    @Benchmark
+    public float update() {
+        this.timeMs += ClockPoseBenchmark.FRAME_INTERVAL_MS;
+        this.pose.update(this.timeMs);
+        return this.pose.getSecondRotation();
+    }
+
+    // What the face did before ClockPose: Calendar recomputes all of its fields from the zone rules on every update.
+    // All three rotations are computed, as update() does.
+    @Benchmark
+    public float calendar() {
+        this.timeMs += ClockPoseBenchmark.FRAME_INTERVAL_MS;
+        this.calendar.setTimeInMillis(this.timeMs);
+        final float secondRotation = (this.calendar.get(Calendar.SECOND) + this.calendar.get(Calendar.MILLISECOND) / 1000f) * 6f;
+        final float minuteRotation = this.calendar.get(Calendar.MINUTE) * 6f;
+        final float hourRotation = this.calendar.get(Calendar.HOUR) * 30f + this.calendar.get(Calendar.MINUTE) / 2f;
+        return secondRotation + minuteRotation + hourRotation;
+    }
+}
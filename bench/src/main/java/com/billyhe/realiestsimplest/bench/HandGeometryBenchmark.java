@@ -0,0 +1,67 @@
+package com.billyhe.realiestsimplest.bench;
+
+import com.billyhe.realiestsimplest.core.FaceLayout;
+import com.billyhe.realiestsimplest.core.HandGeometry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Rebuilding a hand (on every surface change) and rotating its mesh (on every ambient frame).
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandGeometryBenchmark {
+    // Surface size in pixels, e.g. that of the Fossil Gen 5 device profile.
+    @Param({ "416" })
+    public int size;
+
+    private final FaceLayout layout = new FaceLayout();
+    private final HandGeometry hand = new HandGeometry();
+    private float[] meshVertices;
+    private float rotation = 0;
+
+    @Setup
+    public void setUp() {
+        this.layout.update(this.size, this.size);
+
+        // Same shape as the second hand, which has every optional part of a hand.
+        this.hand.setOriginX(this.layout.getCenterX());
+        this.hand.setOriginY(this.layout.getCenterY());
+        this.hand.setHandLength(this.layout.getSecondHandLength());
+        this.hand.setTailLength(this.layout.getSecondHandTailLength());
+        this.hand.setTipWidth(2f);
+        this.hand.setTipHeight(2f);
+        this.hand.setBaseWidth(4f);
+        this.hand.setCircleRadius(10f);
+        this.hand.rebuild();
+
+        this.meshVertices = new float[this.hand.getMeshVertices().length];
+    }
+
+    @Benchmark
+    public short[] rebuild() {
+        this.hand.rebuild();
+        return this.hand.getMeshIndices();
+    }
+
+    @Benchmark
+    public float[] transformMesh() {
+        this.rotation = (this.rotation + 6f) % 360f;
+        this.hand.transformMesh(this.rotation, this.meshVertices);
+        return this.meshVertices;
+    }
+}
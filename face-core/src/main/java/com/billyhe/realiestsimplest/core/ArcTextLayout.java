@@ -0,0 +1,57 @@
+package com.billyhe.realiestsimplest.core;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Lays out a run of glyphs along a circle, given their advance widths: each glyph is placed at the mid-point of its
+// advance and rotated to the tangent of the circle at that point, so that the text reads clockwise.
+public class ArcTextLayout {
+    public enum Align {
+        LEFT,
+        CENTER,
+        RIGHT,
+    }
+
+    @Setter private float centerX = 0;
+    @Setter private float centerY = 0;
+    @Setter private float radius = 0;
+    // Angle (in degrees, clockwise from 3 o'clock) the text is anchored at, according to the alignment.
+    @Setter private float anchorAngle = 0;
+    @Setter private Align align = Align.LEFT;
+
+    @Getter private int glyphCount = 0;
+    @Getter private float[] glyphX = new float[0];
+    @Getter private float[] glyphY = new float[0];
+    @Getter private float[] glyphRotations = new float[0];
+
+    public void layout(float[] glyphWidths, int count) {
+        if (this.glyphX.length < count) {
+            this.glyphX = new float[count];
+            this.glyphY = new float[count];
+            this.glyphRotations = new float[count];
+        }
+
+        float totalWidth = 0;
+        for (int i = 0; i < count; i++) {
+            totalWidth += glyphWidths[i];
+        }
+
+        // Distance along the circle (starting at 3 o'clock, going clockwise) where the first glyph begins.
+        float start = (float) Math.toRadians(this.anchorAngle) * this.radius;
+        if (this.align == Align.CENTER) {
+            start -= totalWidth / 2f;
+        } else if (this.align == Align.RIGHT) {
+            start -= totalWidth;
+        }
+
+        float advance = start;
+        for (int i = 0; i < count; i++) {
+            final double theta = (advance + glyphWidths[i] / 2f) / this.radius;
+            this.glyphX[i] = this.centerX + (float) (this.radius * Math.cos(theta));
+            this.glyphY[i] = this.centerY + (float) (this.radius * Math.sin(theta));
+            this.glyphRotations[i] = (float) Math.toDegrees(theta) + 90f;
+            advance += glyphWidths[i];
+        }
+        this.glyphCount = count;
+    }
+}
@@ -0,0 +1,13 @@
+package com.billyhe.realiestsimplest.core;
+
+// Source of the current wall-clock time, so that the face can be driven by a simulated clock.
+public interface Clock {
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    long currentTimeMillis();
+}
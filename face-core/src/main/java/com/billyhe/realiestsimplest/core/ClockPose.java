@@ -0,0 +1,85 @@
+package com.billyhe.realiestsimplest.core;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+import lombok.Getter;
+
+public class ClockPose {
+    private static final long MILLIS_PER_SECOND = 1000L;
+    private static final long MILLIS_PER_MINUTE = 60L * ClockPose.MILLIS_PER_SECOND;
+    private static final long MILLIS_PER_HOUR = 60L * ClockPose.MILLIS_PER_MINUTE;
+    private static final long MILLIS_PER_DAY = 24L * ClockPose.MILLIS_PER_HOUR;
+
+    private ZoneId zone;
+
+    // Zone offset cached from the zone rules; it stays valid until the surrounding DST transitions.
+    @Getter private long zoneOffsetMs = 0;
+    private long zoneOffsetValidFromMs = Long.MAX_VALUE;
+    private long zoneOffsetValidUntilMs = Long.MIN_VALUE;
+
+    @Getter private long timeMs = 0;
+    @Getter private long localDay = 0;
+    @Getter private int hour = 0;
+    @Getter private int minute = 0;
+    @Getter private int second = 0;
+    @Getter private int millisecond = 0;
+
+    @Getter private float hourRotation = 0;
+    @Getter private float minuteRotation = 0;
+    @Getter private float secondRotation = 0;
+
+    public ClockPose() {
+        this(ZoneId.systemDefault());
+    }
+
+    public ClockPose(ZoneId zone) {
+        this.setZone(zone);
+    }
+
+    public void setZone(ZoneId zone) {
+        this.zone = zone;
+
+        // Force the offset to be looked up again on the next update.
+        this.zoneOffsetValidFromMs = Long.MAX_VALUE;
+        this.zoneOffsetValidUntilMs = Long.MIN_VALUE;
+    }
+
+    public void update(long timeMs) {
+        if (timeMs < this.zoneOffsetValidFromMs || timeMs >= this.zoneOffsetValidUntilMs) {
+            this.refreshZoneOffset(timeMs);
+        }
+
+        final long localMs = timeMs + this.zoneOffsetMs;
+        final long dayMs = Math.floorMod(localMs, ClockPose.MILLIS_PER_DAY);
+
+        this.timeMs = timeMs;
+        this.localDay = Math.floorDiv(localMs, ClockPose.MILLIS_PER_DAY);
+        this.hour = (int) (dayMs / ClockPose.MILLIS_PER_HOUR);
+        this.minute = (int) (dayMs / ClockPose.MILLIS_PER_MINUTE % 60);
+        this.second = (int) (dayMs / ClockPose.MILLIS_PER_SECOND % 60);
+        this.millisecond = (int) (dayMs % ClockPose.MILLIS_PER_SECOND);
+
+        // These calculations reflect the rotation in degrees per unit of time.
+        // For example: 360 / 60 = 6 and 360 / 12 = 30
+        this.secondRotation = (this.second + this.millisecond / 1000f) * 6f;
+        this.minuteRotation = this.minute * 6f;
+        this.hourRotation = (this.hour % 12) * 30f + this.minute / 2f;
+    }
+
+    private void refreshZoneOffset(long timeMs) {
+        final ZoneRules rules = this.zone.getRules();
+        final Instant instant = Instant.ofEpochMilli(timeMs);
+
+        this.zoneOffsetMs = rules.getOffset(instant).getTotalSeconds() * ClockPose.MILLIS_PER_SECOND;
+
+        // Transitions fall on whole seconds, so look up the previous one from just inside the current second.
+        final ZoneOffsetTransition previous = rules.previousTransition(Instant.ofEpochSecond(Math.floorDiv(timeMs, ClockPose.MILLIS_PER_SECOND), 1));
+        final ZoneOffsetTransition next = rules.nextTransition(instant);
+
+        this.zoneOffsetValidFromMs = previous != null ? previous.toEpochSecond() * ClockPose.MILLIS_PER_SECOND : Long.MIN_VALUE;
+        this.zoneOffsetValidUntilMs = next != null ? next.toEpochSecond() * ClockPose.MILLIS_PER_SECOND : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,138 @@
+package com.billyhe.realiestsimplest.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+
+// The events driving a watch face engine, with the time they arrived at, kept in a fixed-size ring of the most recent
+// ones. Traces are written as lines of "<time ms> <event> <value>", so that they can be replayed off the device; the
+// value of a time zone change is the zone's ID, since its offset alone doesn't tell when daylight saving time starts.
+public class EngineTrace {
+    public enum Event {
+        // Value is 1 for visible/ambient, 0 otherwise.
+        VISIBILITY,
+        AMBIENT_MODE,
+        // Value is always 0.
+        TIME_TICK,
+        // Value is the new count.
+        NOTIFICATION_COUNT,
+        UNREAD_COUNT,
+        // Value is 0; the zone's ID (e.g. "Europe/Paris") is kept separately, see getZoneId().
+        TIME_ZONE,
+    }
+
+    private static final String HEADER = "# engine trace: <time ms> <event> <value>";
+
+    private final long[] times;
+    private final Event[] events;
+    private final int[] values;
+    // Only set for TIME_ZONE events.
+    private final String[] zoneIds;
+    // Total number of events recorded, including those the ring no longer holds.
+    @Getter private long recordCount = 0;
+
+    public EngineTrace(int capacity) {
+        this.times = new long[capacity];
+        this.events = new Event[capacity];
+        this.values = new int[capacity];
+        this.zoneIds = new String[capacity];
+    }
+
+    public void record(long timeMs, Event event, int value) {
+        if (event == Event.TIME_ZONE) {
+            throw new IllegalArgumentException("time zone changes are recorded with recordTimeZone()");
+        }
+        this.add(timeMs, event, value, null);
+    }
+
+    public void recordTimeZone(long timeMs, String zoneId) {
+        this.add(timeMs, Event.TIME_ZONE, 0, zoneId);
+    }
+
+    // Number of events held, oldest first from index 0.
+    public int getSize() {
+        return (int) Math.min(this.recordCount, this.times.length);
+    }
+
+    public long getTimeMs(int index) {
+        return this.times[this.getRingIndex(index)];
+    }
+
+    public Event getEvent(int index) {
+        return this.events[this.getRingIndex(index)];
+    }
+
+    public int getValue(int index) {
+        return this.values[this.getRingIndex(index)];
+    }
+
+    // The zone changed to, for TIME_ZONE events; null for others.
+    public String getZoneId(int index) {
+        return this.zoneIds[this.getRingIndex(index)];
+    }
+
+    public void write(PrintWriter writer) {
+        writer.println(EngineTrace.HEADER);
+        for (int i = 0; i < this.getSize(); i++) {
+            if (this.getEvent(i) == Event.TIME_ZONE) {
+                writer.printf("%d %s %s%n", this.getTimeMs(i), this.getEvent(i), this.getZoneId(i));
+            } else {
+                writer.printf("%d %s %d%n", this.getTimeMs(i), this.getEvent(i), this.getValue(i));
+            }
+        }
+    }
+
+    // Reads a trace written by write(), into a trace just large enough to hold it. Blank and # lines are skipped.
+    public static EngineTrace read(Reader reader) throws IOException {
+        final BufferedReader lines = new BufferedReader(reader);
+        final List<String[]> fields = new ArrayList<>();
+        String line;
+        while ((line = lines.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            final String[] lineFields = line.split("\\s+");
+            if (lineFields.length != 3) {
+                throw new IOException("malformed trace line: " + line);
+            }
+            fields.add(lineFields);
+        }
+
+        final EngineTrace trace = new EngineTrace(Math.max(1, fields.size()));
+        for (String[] lineFields : fields) {
+            try {
+                final long timeMs = Long.parseLong(lineFields[0]);
+                final Event event = Event.valueOf(lineFields[1]);
+                if (event == Event.TIME_ZONE) {
+                    trace.recordTimeZone(timeMs, lineFields[2]);
+                } else {
+                    trace.record(timeMs, event, Integer.parseInt(lineFields[2]));
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IOException("malformed trace line: " + String.join(" ", lineFields), e);
+            }
+        }
+        return trace;
+    }
+
+    private void add(long timeMs, Event event, int value, String zoneId) {
+        final int index = (int) (this.recordCount % this.times.length);
+        this.times[index] = timeMs;
+        this.events[index] = event;
+        this.values[index] = value;
+        this.zoneIds[index] = zoneId;
+        this.recordCount++;
+    }
+
+    private int getRingIndex(int index) {
+        final long first = this.recordCount - this.getSize();
+        return (int) ((first + index) % this.times.length);
+    }
+}
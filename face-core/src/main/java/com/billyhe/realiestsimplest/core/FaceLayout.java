@@ -0,0 +1,44 @@
+package com.billyhe.realiestsimplest.core;
+
+import lombok.Getter;
+
+// Sizes and positions of the face's elements for a given surface size.
+public class FaceLayout {
+    public static final float RIM_RADIUS_PERCENTAGE = 0.95f;
+    public static final float HOUR_HAND_LENGTH_PERCENTAGE = 0.60f;
+    public static final float MINUTE_HAND_LENGTH_PERCENTAGE = 0.80f;
+    public static final float SECOND_HAND_LENGTH_PERCENTAGE = 0.90f;
+    public static final float SECOND_HAND_TAIL_PERCENTAGE = 0.3f;
+    public static final float COMPLICATION_RADIUS_PERCENTAGE = 0.22f;
+    public static final float COMPLICATION_OFFSET_PERCENTAGE = 0.5f;
+
+    @Getter private float width = 0;
+    @Getter private float height = 0;
+    @Getter private float centerX = 0;
+    @Getter private float centerY = 0;
+    @Getter private float rimRadius = 0;
+    @Getter private float hourHandLength = 0;
+    @Getter private float minuteHandLength = 0;
+    @Getter private float secondHandLength = 0;
+    @Getter private float secondHandTailLength = 0;
+    // Complications sit this far left and right of the center (i.e. towards 9 and 3 o'clock).
+    @Getter private float complicationRadius = 0;
+    @Getter private float complicationOffset = 0;
+
+    public void update(float width, float height) {
+        this.width = width;
+        this.height = height;
+
+        this.centerX = width / 2f;
+        this.centerY = height / 2f;
+
+        // Hand lengths are relative to the rim, which is relative to the width of the (round or square) face.
+        this.rimRadius = width / 2 * FaceLayout.RIM_RADIUS_PERCENTAGE;
+        this.hourHandLength = this.rimRadius * FaceLayout.HOUR_HAND_LENGTH_PERCENTAGE;
+        this.minuteHandLength = this.rimRadius * FaceLayout.MINUTE_HAND_LENGTH_PERCENTAGE;
+        this.secondHandLength = this.rimRadius * FaceLayout.SECOND_HAND_LENGTH_PERCENTAGE;
+        this.secondHandTailLength = this.rimRadius * FaceLayout.SECOND_HAND_TAIL_PERCENTAGE;
+        this.complicationRadius = this.rimRadius * FaceLayout.COMPLICATION_RADIUS_PERCENTAGE;
+        this.complicationOffset = this.rimRadius * FaceLayout.COMPLICATION_OFFSET_PERCENTAGE;
+    }
+}
@@ -0,0 +1,146 @@
+package com.billyhe.realiestsimplest.core;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Platform-independent geometry of a watch hand pointing at 12 o'clock: its outline (in drawing order) and a
+// triangle mesh of the hand and its hub circle. Coordinates are in screen space, i.e. y grows downwards.
+public class HandGeometry {
+    @Getter @Setter private float originX = 0;
+    @Getter @Setter private float originY = 0;
+    @Setter private float handLength = 0;
+    @Setter private float tailLength = 0;
+    @Setter private float tipWidth = 0;
+    @Setter private float tipHeight = 0;
+    @Setter private float baseWidth = 0;
+    @Getter @Setter private float circleRadius = 0;
+    @Setter private int circleSegments = 32;
+
+    // Outline points in drawing order (moving to the first one, then drawing lines to the rest), as x/y pairs.
+    @Getter private final float[] pathPoints = new float[20];
+    @Getter private int pathPointCount = 0;
+
+    // Triangle mesh of the hand (a fan around the origin) and its hub circle, for Canvas.drawVertices.
+    @Getter private float[] meshVertices = new float[0];
+    @Getter private short[] meshIndices = new short[0];
+
+    // Outline points of the hand polygon without repeats.
+    private final float[] outline = new float[20];
+    private int outlinePointCount = 0;
+
+    public void rebuild() {
+        this.pathPointCount = 0;
+        this.outlinePointCount = 0;
+
+        if (this.handLength <= 0) {
+            this.rebuildMesh();
+            return;
+        }
+
+        this.addPoint(this.originX, this.originY - this.handLength);
+
+        if (this.tipWidth > 0 || this.tipHeight > 0) {
+            this.addPoint(this.originX + this.tipWidth, this.originY - this.handLength + this.tipHeight);
+        }
+
+        this.addPoint(this.originX + this.baseWidth, this.originY);
+
+        if (this.tailLength > 0) {
+            if (this.tipWidth > 0 || this.tipHeight > 0) {
+                this.addPoint(this.originX + this.tipWidth, this.originY + this.tailLength - this.tipHeight);
+            }
+
+            this.addPoint(this.originX, this.originY + this.tailLength);
+            this.addPoint(this.originX, this.originY + this.tailLength);
+
+            if (this.tipWidth > 0 || this.tipHeight > 0) {
+                this.addPoint(this.originX - this.tipWidth, this.originY + this.tailLength - this.tipHeight);
+            }
+        }
+
+        this.addPoint(this.originX - this.baseWidth, this.originY);
+
+        if (this.tipWidth > 0 || this.tipHeight > 0) {
+            this.addPoint(this.originX - this.tipWidth, this.originY - this.handLength + this.tipHeight);
+        }
+
+        this.addPoint(this.originX, this.originY - this.handLength);
+
+        this.rebuildMesh();
+    }
+
+    // Rotates the mesh vertices around the hand's origin (clockwise, like Canvas.rotate) into the given array,
+    // which needs to be at least as long as the mesh vertices.
+    public void transformMesh(float degrees, float[] out) {
+        if (this.meshVertices.length == 0) {
+            return;
+        }
+
+        final float pivotX = this.meshVertices[0];
+        final float pivotY = this.meshVertices[1];
+        final double radians = Math.toRadians(degrees);
+        final float cos = (float) Math.cos(radians);
+        final float sin = (float) Math.sin(radians);
+
+        for (int i = 0; i < this.meshVertices.length; i += 2) {
+            final float dx = this.meshVertices[i] - pivotX;
+            final float dy = this.meshVertices[i + 1] - pivotY;
+            out[i] = pivotX + dx * cos - dy * sin;
+            out[i + 1] = pivotY + dx * sin + dy * cos;
+        }
+    }
+
+    private void addPoint(float x, float y) {
+        this.pathPoints[this.pathPointCount * 2] = x;
+        this.pathPoints[this.pathPointCount * 2 + 1] = y;
+        this.pathPointCount++;
+
+        // Skip repeated points, including the one closing the outline back onto its starting point.
+        for (int i = 0; i < this.outlinePointCount; i++) {
+            if (this.outline[i * 2] == x && this.outline[i * 2 + 1] == y) {
+                return;
+            }
+        }
+
+        this.outline[this.outlinePointCount * 2] = x;
+        this.outline[this.outlinePointCount * 2 + 1] = y;
+        this.outlinePointCount++;
+    }
+
+    private void rebuildMesh() {
+        if (this.outlinePointCount < 3) {
+            this.meshVertices = new float[0];
+            this.meshIndices = new short[0];
+            return;
+        }
+
+        final int segments = this.circleRadius > 0 ? Math.max(3, this.circleSegments) : 0;
+        this.meshVertices = new float[(1 + this.outlinePointCount + segments) * 2];
+        this.meshIndices = new short[(this.outlinePointCount + segments) * 3];
+
+        // The origin is the shared center vertex of both the hand's fan and the hub circle's fan.
+        this.meshVertices[0] = this.originX;
+        this.meshVertices[1] = this.originY;
+        System.arraycopy(this.outline, 0, this.meshVertices, 2, this.outlinePointCount * 2);
+
+        // Hub circle vertices go clockwise (on screen) from 3 o'clock, the same winding as the hand's outline.
+        for (int i = 0; i < segments; i++) {
+            final double angle = 2 * Math.PI * i / segments;
+            final int offset = (1 + this.outlinePointCount + i) * 2;
+            this.meshVertices[offset] = this.originX + (float) (this.circleRadius * Math.cos(angle));
+            this.meshVertices[offset + 1] = this.originY + (float) (this.circleRadius * Math.sin(angle));
+        }
+
+        int index = 0;
+        for (int i = 0; i < this.outlinePointCount; i++) {
+            this.meshIndices[index++] = 0;
+            this.meshIndices[index++] = (short) (1 + i);
+            this.meshIndices[index++] = (short) (1 + (i + 1) % this.outlinePointCount);
+        }
+        for (int i = 0; i < segments; i++) {
+            this.meshIndices[index++] = 0;
+            this.meshIndices[index++] = (short) (1 + this.outlinePointCount + i);
+            this.meshIndices[index++] = (short) (1 + this.outlinePointCount + (i + 1) % segments);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.billyhe.realiestsimplest.core;
+
+// States of the notification indicator at the hub of the hands. It only shows whether there are unread or any
+// notifications at all, so most count changes leave it unchanged.
+public final class NotificationIndicator {
+    public static final int NONE = 0;
+    public static final int NOTIFICATIONS = 1;
+    public static final int UNREAD = 2;
+
+    private NotificationIndicator() {
+    }
+
+    public static int get(int notificationCount, int unreadCount) {
+        if (unreadCount > 0) {
+            return NotificationIndicator.UNREAD;
+        } else if (notificationCount > 0) {
+            return NotificationIndicator.NOTIFICATIONS;
+        }
+        return NotificationIndicator.NONE;
+    }
+}
@@ -0,0 +1,121 @@
+package com.billyhe.realiestsimplest.core;
+
+import java.io.PrintWriter;
+import java.util.concurrent.Executor;
+
+import lombok.Getter;
+
+// Every reason to redraw the face goes through here, so that requests arriving together (or before a tick that
+// redraws anyway) result in a single redraw, and state changes that don't affect the output in none at all.
+// Redraws are posted to the executor, which must run them on the thread everything else here is called on.
+public class RedrawScheduler {
+    public enum Reason {
+        TICK(true),
+        TIME_ZONE(false),
+        AMBIENT_MODE(true),
+        VISIBILITY(true),
+        PROPERTIES(false),
+        RENDER_QUALITY(false),
+        COMPLICATIONS(false),
+        NOTIFICATION_INDICATOR(false),
+        DEBUG(false);
+
+        // Urgent requests are never deferred to the next tick.
+        private final boolean urgent;
+
+        Reason(boolean urgent) {
+            this.urgent = urgent;
+        }
+    }
+
+    public interface Target {
+        // Returns whether a tick (which redraws anyway) is coming up.
+        boolean isTickScheduled();
+
+        void redraw();
+    }
+
+    private final Executor executor;
+    private final Target target;
+
+    private final long[] requestCounts = new long[Reason.values().length];
+    private final long[] skipCounts = new long[Reason.values().length];
+    @Getter private long redrawCount = 0;
+
+    // Reasons requested since the last redraw, as a bit mask of their ordinals.
+    private int pendingReasons = 0;
+    private boolean isPosted = false;
+
+    // Posted redraws can't be taken back, so one that was cancelled (or beaten by a tick) in the meantime does nothing.
+    private final Runnable redrawTask = new Runnable() {
+        @Override
+        public void run() {
+            if (RedrawScheduler.this.isPosted) {
+                RedrawScheduler.this.redraw();
+            }
+        }
+    };
+
+    public RedrawScheduler(Executor executor, Target target) {
+        this.executor = executor;
+        this.target = target;
+    }
+
+    // Redraws right away, taking any pending requests along.
+    public void tick() {
+        this.requestCounts[Reason.TICK.ordinal()]++;
+        this.redraw();
+    }
+
+    // Redraws on the executor's next turn, or on the next tick if the reason isn't urgent and a tick is coming up.
+    public void request(Reason reason) {
+        this.requestCounts[reason.ordinal()]++;
+        this.pendingReasons |= 1 << reason.ordinal();
+
+        if (this.isPosted || (!reason.urgent && this.target.isTickScheduled())) {
+            return;
+        }
+
+        this.isPosted = true;
+        this.executor.execute(this.redrawTask);
+    }
+
+    // Records a state change that leaves the output unchanged, and so needs no redraw.
+    public void skip(Reason reason) {
+        this.skipCounts[reason.ordinal()]++;
+    }
+
+    public void cancel() {
+        this.isPosted = false;
+        this.pendingReasons = 0;
+    }
+
+    public long getRequestCount(Reason reason) {
+        return this.requestCounts[reason.ordinal()];
+    }
+
+    public long getSkipCount(Reason reason) {
+        return this.skipCounts[reason.ordinal()];
+    }
+
+    public void dump(PrintWriter writer, String prefix) {
+        long requestCount = 0;
+        long skipCount = 0;
+        for (Reason reason : Reason.values()) {
+            requestCount += this.getRequestCount(reason);
+            skipCount += this.getSkipCount(reason);
+        }
+
+        writer.printf("%srequested: %d, executed: %d, skipped: %d%n", prefix, requestCount, this.redrawCount, skipCount);
+        for (Reason reason : Reason.values()) {
+            final boolean pending = (this.pendingReasons & (1 << reason.ordinal())) != 0;
+            writer.printf("%s%s: requested %d, skipped %d%s%n", prefix, reason, this.getRequestCount(reason), this.getSkipCount(reason), pending ? " (pending)" : "");
+        }
+    }
+
+    private void redraw() {
+        this.cancel();
+        this.redrawCount++;
+        this.target.redraw();
+    }
+}
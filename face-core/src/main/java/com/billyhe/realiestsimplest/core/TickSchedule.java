@@ -0,0 +1,13 @@
+package com.billyhe.realiestsimplest.core;
+
+// Ticks are aligned to multiples of their interval (e.g. to the second), so that delays in delivering one tick
+// don't carry over to the next.
+public final class TickSchedule {
+    private TickSchedule() {
+    }
+
+    // Returns the delay from the given time until the next tick.
+    public static long getDelayMs(long timeMs, long intervalMs) {
+        return intervalMs - (timeMs % intervalMs);
+    }
+}
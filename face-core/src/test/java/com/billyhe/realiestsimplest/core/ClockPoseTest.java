@@ -0,0 +1,153 @@
+package com.billyhe.realiestsimplest.core;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+// Checks ClockPose, which caches the zone offset between transitions, against Calendar doing the full conversion
+// for every instant. Each range is walked forwards and backwards through a single pose, the way a face updates it.
+public class ClockPoseTest {
+    private static final ZoneId LOS_ANGELES = ZoneId.of("America/Los_Angeles");
+    // Moves its clocks by half an hour, so transitions don't line up with whole hours in UTC.
+    private static final ZoneId LORD_HOWE = ZoneId.of("Australia/Lord_Howe");
+
+    private static final long SECOND_MS = TimeUnit.SECONDS.toMillis(1);
+    private static final long MINUTE_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final long HOUR_MS = TimeUnit.HOURS.toMillis(1);
+
+    // An odd step, so that walks land on all sorts of milliseconds.
+    private static final long STEP_MS = 997;
+
+    @Test
+    public void springForwardGap() {
+        // 02:00 PST jumps to 03:00 PDT.
+        final long transitionMs = ClockPoseTest.toMs(2021, 3, 14, 10, 0, ZoneOffset.UTC);
+        this.assertMatchesCalendar(ClockPoseTest.LOS_ANGELES, transitionMs - ClockPoseTest.HOUR_MS, transitionMs + ClockPoseTest.HOUR_MS, ClockPoseTest.STEP_MS);
+        this.assertMatchesCalendar(ClockPoseTest.LOS_ANGELES, transitionMs - ClockPoseTest.SECOND_MS, transitionMs + ClockPoseTest.SECOND_MS, 1);
+    }
+
+    @Test
+    public void fallBackOverlap() {
+        // 02:00 PDT goes back to 01:00 PST, so 01:xx happens twice.
+        final long transitionMs = ClockPoseTest.toMs(2021, 11, 7, 9, 0, ZoneOffset.UTC);
+        this.assertMatchesCalendar(ClockPoseTest.LOS_ANGELES, transitionMs - 2 * ClockPoseTest.HOUR_MS, transitionMs + 2 * ClockPoseTest.HOUR_MS, ClockPoseTest.STEP_MS);
+        this.assertMatchesCalendar(ClockPoseTest.LOS_ANGELES, transitionMs - ClockPoseTest.SECOND_MS, transitionMs + ClockPoseTest.SECOND_MS, 1);
+    }
+
+    @Test
+    public void halfHourTransitions() {
+        // 02:00 goes back to 01:30 in April, and 02:00 jumps to 02:30 in October.
+        final long fallBackMs = ClockPoseTest.toMs(2021, 4, 3, 15, 0, ZoneOffset.UTC);
+        final long springForwardMs = ClockPoseTest.toMs(2021, 10, 2, 15, 30, ZoneOffset.UTC);
+        this.assertMatchesCalendar(ClockPoseTest.LORD_HOWE, fallBackMs - ClockPoseTest.HOUR_MS, fallBackMs + ClockPoseTest.HOUR_MS, ClockPoseTest.STEP_MS);
+        this.assertMatchesCalendar(ClockPoseTest.LORD_HOWE, springForwardMs - ClockPoseTest.HOUR_MS, springForwardMs + ClockPoseTest.HOUR_MS, ClockPoseTest.STEP_MS);
+    }
+
+    @Test
+    public void wholeYear() {
+        final long startMs = ClockPoseTest.toMs(2021, 1, 1, 0, 0, ClockPoseTest.LOS_ANGELES);
+        final long endMs = ClockPoseTest.toMs(2022, 1, 1, 0, 0, ClockPoseTest.LOS_ANGELES);
+        this.assertMatchesCalendar(ClockPoseTest.LOS_ANGELES, startMs, endMs, ClockPoseTest.HOUR_MS + ClockPoseTest.MINUTE_MS + ClockPoseTest.STEP_MS);
+    }
+
+    @Test
+    public void midnightWrap() {
+        final long midnightMs = ClockPoseTest.toMs(2021, 7, 5, 0, 0, ClockPoseTest.LOS_ANGELES);
+        this.assertMatchesCalendar(ClockPoseTest.LOS_ANGELES, midnightMs - 2 * ClockPoseTest.SECOND_MS, midnightMs + 2 * ClockPoseTest.SECOND_MS, 1);
+
+        final ClockPose pose = new ClockPose(ClockPoseTest.LOS_ANGELES);
+        pose.update(midnightMs - 1);
+        final long day = pose.getLocalDay();
+        assertEquals(23, pose.getHour());
+        assertEquals(330f + 59 / 2f, pose.getHourRotation(), 0f);
+        assertEquals(354f, pose.getMinuteRotation(), 0f);
+        assertEquals(359.994f, pose.getSecondRotation(), 0.0001f);
+
+        pose.update(midnightMs);
+        assertEquals(day + 1, pose.getLocalDay());
+        assertEquals(0, pose.getHour());
+        assertEquals(0f, pose.getHourRotation(), 0f);
+        assertEquals(0f, pose.getMinuteRotation(), 0f);
+        assertEquals(0f, pose.getSecondRotation(), 0f);
+    }
+
+    @Test
+    public void noonWrap() {
+        final long noonMs = ClockPoseTest.toMs(2021, 7, 4, 12, 0, ClockPoseTest.LOS_ANGELES);
+        this.assertMatchesCalendar(ClockPoseTest.LOS_ANGELES, noonMs - 2 * ClockPoseTest.SECOND_MS, noonMs + 2 * ClockPoseTest.SECOND_MS, 1);
+
+        final ClockPose pose = new ClockPose(ClockPoseTest.LOS_ANGELES);
+        pose.update(noonMs - 1);
+        final long day = pose.getLocalDay();
+        assertEquals(11, pose.getHour());
+        assertEquals(330f + 59 / 2f, pose.getHourRotation(), 0f);
+
+        pose.update(noonMs);
+        assertEquals(day, pose.getLocalDay());
+        assertEquals(12, pose.getHour());
+        assertEquals(0f, pose.getHourRotation(), 0f);
+    }
+
+    @Test
+    public void beforeEpoch() {
+        this.assertMatchesCalendar(ZoneOffset.UTC, -2 * ClockPoseTest.SECOND_MS, 2 * ClockPoseTest.SECOND_MS, 1);
+        this.assertMatchesCalendar(ClockPoseTest.LOS_ANGELES, -ClockPoseTest.HOUR_MS, ClockPoseTest.HOUR_MS, ClockPoseTest.STEP_MS);
+    }
+
+    @Test
+    public void setZoneDropsCachedOffset() {
+        final long timeMs = ClockPoseTest.toMs(2021, 7, 4, 10, 8, ClockPoseTest.LOS_ANGELES);
+        final ClockPose pose = new ClockPose(ClockPoseTest.LOS_ANGELES);
+        pose.update(timeMs);
+
+        pose.setZone(ClockPoseTest.LORD_HOWE);
+        pose.update(timeMs);
+        ClockPoseTest.assertPose(ClockPoseTest.LORD_HOWE, timeMs, pose);
+    }
+
+    private void assertMatchesCalendar(ZoneId zone, long startMs, long endMs, long stepMs) {
+        final ClockPose pose = new ClockPose(zone);
+        for (long timeMs = startMs; timeMs <= endMs; timeMs += stepMs) {
+            pose.update(timeMs);
+            ClockPoseTest.assertPose(zone, timeMs, pose);
+        }
+        for (long timeMs = endMs; timeMs >= startMs; timeMs -= stepMs) {
+            pose.update(timeMs);
+            ClockPoseTest.assertPose(zone, timeMs, pose);
+        }
+    }
+
+    private static void assertPose(ZoneId zone, long timeMs, ClockPose pose) {
+        final Calendar calendar = new GregorianCalendar(TimeZone.getTimeZone(zone));
+        calendar.setTimeInMillis(timeMs);
+        final int hour = calendar.get(Calendar.HOUR_OF_DAY);
+        final int minute = calendar.get(Calendar.MINUTE);
+        final int second = calendar.get(Calendar.SECOND);
+        final int millisecond = calendar.get(Calendar.MILLISECOND);
+        final long day = LocalDate.of(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH)).toEpochDay();
+
+        final String message = zone + " @" + timeMs;
+        assertEquals(message, timeMs, pose.getTimeMs());
+        assertEquals(message, day, pose.getLocalDay());
+        assertEquals(message, hour, pose.getHour());
+        assertEquals(message, minute, pose.getMinute());
+        assertEquals(message, second, pose.getSecond());
+        assertEquals(message, millisecond, pose.getMillisecond());
+        assertEquals(message, (hour % 12) * 30f + minute / 2f, pose.getHourRotation(), 0f);
+        assertEquals(message, minute * 6f, pose.getMinuteRotation(), 0f);
+        assertEquals(message, (second + millisecond / 1000f) * 6f, pose.getSecondRotation(), 0f);
+    }
+
+    private static long toMs(int year, int month, int day, int hour, int minute, ZoneId zone) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, zone).toInstant().toEpochMilli();
+    }
+}
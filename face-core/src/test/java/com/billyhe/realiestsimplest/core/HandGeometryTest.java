@@ -0,0 +1,143 @@
+package com.billyhe.realiestsimplest.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// The mesh has to cover exactly what the path does: the hand polygon and the hub circle, as fans of triangles that
+// all wind the same way (so that no triangle is culled or cancels another out).
+public class HandGeometryTest {
+    private static final float ORIGIN_X = 208f;
+    private static final float ORIGIN_Y = 208f;
+    private static final int CIRCLE_SEGMENTS = 32;
+
+    private static final float AREA_TOLERANCE = 0.01f;
+
+    @Test
+    public void handWithTip() {
+        final HandGeometry hand = HandGeometryTest.createHand(150f, 0f, 4f, 6f, 14f);
+
+        // Tip, tip corner and base on either side; the closing point repeats the tip.
+        assertEquals(6, hand.getPathPointCount());
+        HandGeometryTest.assertMesh(hand, 5, HandGeometryTest.CIRCLE_SEGMENTS);
+    }
+
+    @Test
+    public void handWithTail() {
+        final HandGeometry hand = HandGeometryTest.createHand(180f, 60f, 2f, 4f, 10f);
+
+        // The tail end is drawn twice, and only meshed once.
+        assertEquals(10, hand.getPathPointCount());
+        HandGeometryTest.assertMesh(hand, 8, HandGeometryTest.CIRCLE_SEGMENTS);
+    }
+
+    @Test
+    public void handWithoutTipOrHub() {
+        final HandGeometry hand = HandGeometryTest.createHand(100f, 0f, 0f, 5f, 0f);
+
+        assertEquals(4, hand.getPathPointCount());
+        HandGeometryTest.assertMesh(hand, 3, 0);
+    }
+
+    @Test
+    public void emptyHand() {
+        final HandGeometry hand = HandGeometryTest.createHand(0f, 0f, 4f, 6f, 14f);
+
+        assertEquals(0, hand.getPathPointCount());
+        assertEquals(0, hand.getMeshVertices().length);
+        assertEquals(0, hand.getMeshIndices().length);
+    }
+
+    @Test
+    public void rebuildReplacesMesh() {
+        final HandGeometry hand = HandGeometryTest.createHand(180f, 60f, 2f, 4f, 10f);
+        hand.setTailLength(0f);
+        hand.rebuild();
+
+        HandGeometryTest.assertMesh(hand, 5, HandGeometryTest.CIRCLE_SEGMENTS);
+    }
+
+    @Test
+    public void transformMeshRotatesClockwiseAroundOrigin() {
+        final HandGeometry hand = HandGeometryTest.createHand(150f, 0f, 4f, 6f, 14f);
+        final float[] vertices = hand.getMeshVertices();
+        final float[] rotated = new float[vertices.length];
+
+        // Vertex 1 is the tip, at 12 o'clock; a quarter turn clockwise puts it at 3 o'clock.
+        hand.transformMesh(90f, rotated);
+        assertEquals(HandGeometryTest.ORIGIN_X, rotated[0], 0f);
+        assertEquals(HandGeometryTest.ORIGIN_Y, rotated[1], 0f);
+        assertEquals(HandGeometryTest.ORIGIN_X + 150f, rotated[2], 0.001f);
+        assertEquals(HandGeometryTest.ORIGIN_Y, rotated[3], 0.001f);
+
+        // Rotating preserves the area and the winding.
+        assertEquals(HandGeometryTest.sumTriangleAreas(vertices, hand.getMeshIndices()), HandGeometryTest.sumTriangleAreas(rotated, hand.getMeshIndices()), HandGeometryTest.AREA_TOLERANCE);
+    }
+
+    private static HandGeometry createHand(float handLength, float tailLength, float tipSize, float baseWidth, float circleRadius) {
+        final HandGeometry hand = new HandGeometry();
+        hand.setOriginX(HandGeometryTest.ORIGIN_X);
+        hand.setOriginY(HandGeometryTest.ORIGIN_Y);
+        hand.setHandLength(handLength);
+        hand.setTailLength(tailLength);
+        hand.setTipWidth(tipSize);
+        hand.setTipHeight(tipSize);
+        hand.setBaseWidth(baseWidth);
+        hand.setCircleRadius(circleRadius);
+        hand.setCircleSegments(HandGeometryTest.CIRCLE_SEGMENTS);
+        hand.rebuild();
+        return hand;
+    }
+
+    private static void assertMesh(HandGeometry hand, int outlinePointCount, int circleSegments) {
+        final float[] vertices = hand.getMeshVertices();
+        final short[] indices = hand.getMeshIndices();
+
+        // The origin, the outline and the hub circle; a triangle per outline edge and per circle segment.
+        assertEquals((1 + outlinePointCount + circleSegments) * 2, vertices.length);
+        assertEquals((outlinePointCount + circleSegments) * 3, indices.length);
+        for (short index : indices) {
+            assertTrue("index " + index, index >= 0 && index < vertices.length / 2);
+        }
+
+        // Clockwise on screen (with y growing downwards) comes out positive; degenerate triangles, like the one
+        // across the base of a hand without a tail, have no winding.
+        for (int i = 0; i < indices.length; i += 3) {
+            final float area = HandGeometryTest.signedTriangleArea(vertices, indices[i], indices[i + 1], indices[i + 2]);
+            assertTrue("triangle " + i / 3 + " has area " + area, area >= -HandGeometryTest.AREA_TOLERANCE);
+        }
+
+        // Fans around the origin cover exactly their polygons, as long as no triangle is wound the other way. A hand
+        // without a hub has no circle to cover.
+        final float[] pathPoints = hand.getPathPoints();
+        final double handArea = HandGeometryTest.polygonArea(pathPoints, hand.getPathPointCount());
+        final double hubArea = circleSegments == 0 ? 0 : circleSegments / 2.0 * hand.getCircleRadius() * hand.getCircleRadius() * Math.sin(2 * Math.PI / circleSegments);
+        assertEquals(handArea + hubArea, HandGeometryTest.sumTriangleAreas(vertices, indices), HandGeometryTest.AREA_TOLERANCE * indices.length);
+    }
+
+    private static double sumTriangleAreas(float[] vertices, short[] indices) {
+        double area = 0;
+        for (int i = 0; i < indices.length; i += 3) {
+            area += HandGeometryTest.signedTriangleArea(vertices, indices[i], indices[i + 1], indices[i + 2]);
+        }
+        return area;
+    }
+
+    private static float signedTriangleArea(float[] vertices, int a, int b, int c) {
+        final float abX = vertices[b * 2] - vertices[a * 2];
+        final float abY = vertices[b * 2 + 1] - vertices[a * 2 + 1];
+        final float acX = vertices[c * 2] - vertices[a * 2];
+        final float acY = vertices[c * 2 + 1] - vertices[a * 2 + 1];
+        return (abX * acY - abY * acX) / 2f;
+    }
+
+    // Shoelace formula over the path points, which end where they started (so the repeats add no area).
+    private static double polygonArea(float[] points, int pointCount) {
+        double area = 0;
+        for (int i = 0; i < pointCount - 1; i++) {
+            area += (double) points[i * 2] * points[i * 2 + 3] - (double) points[i * 2 + 2] * points[i * 2 + 1];
+        }
+        return area / 2;
+    }
+}